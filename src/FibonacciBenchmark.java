@@ -0,0 +1,314 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A small benchmarking harness for the fibonacci number generators. Each generator is warmed up before it is timed,
+ * and is then run repeatedly for a fixed amount of time, reporting the average time and the average number of bytes
+ * allocated per call, along with how much garbage collection happened while it was being measured
+ */
+class FibonacciBenchmark
+{
+    // The default index sweep, used when no indices are given on the commandline
+    static final long[] DEFAULT_INDICES = {10L, 90L, 1000L, 100000L, 1000000L};
+    // The default index used to measure how the parallel generator scales with the number of threads
+    static final long DEFAULT_PARALLEL_INDEX = 10000000L;
+    // The default number of values the codec benchmark encodes and decodes in each pass
+    static final int DEFAULT_CODEC_VALUES = 1 << 20;
+
+    // Benchmark timings, a generator is always run at least once in each phase no matter how slow it is
+    private static final long WARMUP_NANOS = 1000000000L;
+    private static final long MEASUREMENT_NANOS = 2000000000L;
+
+    // The index the dynamic iterative generator's allocations are checked at, and the most it may allocate per step on
+    // top of the sum's magnitude, which leaves room for one BigInteger's header but not for a memoised array's index
+    // arithmetic (which allocated several BigIntegers per step)
+    private static final long ALLOCATION_CHECK_INDEX = 10000L;
+    private static final long ALLOCATION_CHECK_STEP_BYTES = 128L;
+    private static final double LOG2_PHI = Math.log((1d + Math.sqrt(5d)) / 2d) / Math.log(2d);
+
+    // Consumes every generated value, so that the JIT compiler cannot optimise the generator calls away
+    private static volatile int blackhole;
+
+    /**
+     * Benchmarks every generator against every given index, printing one line of results per pair
+     * @param indices The indices of the fibonacci sequence to benchmark the generators with
+     */
+    static void benchmarkGeneratorsDriver(long[] indices)
+    {
+        checkDynamicIterativeAllocation();
+        System.out.printf("%-20s\t%10s\t%8s\t%16s\t%16s\t%8s\t%12s\n",
+                "Generator", "Index", "Ops", "ns/op", "bytes/op", "gc.count", "gc.time(ms)");
+
+        for (long index : indices)
+            for (FibonacciGenerator generator : FibonacciGenerator.values())
+                benchmarkGenerator(generator, BigInteger.valueOf(index));
+    } // End of the benchmarkGeneratorsDriver method
+
+    /**
+     * Checks that the dynamic iterative generator only allocates its sums, which is what keeps it in constant live
+     * memory: a memoised array of every value (or any other per-step garbage) would exceed the bound, failing the
+     * benchmark instead of going unnoticed in the bytes/op column
+     * @throws IllegalStateException When the generator allocates more than one sum per step
+     */
+    static void checkDynamicIterativeAllocation()
+    {
+        BigInteger index = BigInteger.valueOf(ALLOCATION_CHECK_INDEX);
+        blackhole ^= FibonacciGenerator.DYNAMIC_ITERATIVE.generate(index).bitLength(); // Warm up
+
+        long allocatedBefore = getAllocatedBytes();
+        blackhole ^= FibonacciGenerator.DYNAMIC_ITERATIVE.generate(index).bitLength();
+        long allocatedAfter = getAllocatedBytes();
+        if ((allocatedBefore < 0L) || (allocatedAfter < 0L))
+        {
+            System.out.println("Skipping the dynamic iterative allocation check, as this JVM cannot measure it");
+            return;
+        }
+
+        // F(k) has at most k * log2(phi) + 1 bits, held in 32-bit words
+        long bound = 0L;
+        for (long k = 2L; k <= ALLOCATION_CHECK_INDEX; ++k)
+            bound += (4L * (((long) (k * LOG2_PHI) + 32L) / 32L)) + ALLOCATION_CHECK_STEP_BYTES;
+
+        long allocated = allocatedAfter - allocatedBefore;
+        if (allocated > bound)
+            throw new IllegalStateException("Error: the dynamic iterative generator allocated " + allocated +
+                    " bytes at index " + ALLOCATION_CHECK_INDEX + ", more than the " + bound + " bytes its sums need");
+        System.out.printf("Dynamic iterative allocated %d bytes at index %d, within the %d bytes its sums need\n",
+                allocated, ALLOCATION_CHECK_INDEX, bound);
+    } // End of the checkDynamicIterativeAllocation method
+
+    /**
+     * Measures how the parallel generator scales, running it on fork/join pools of 1, 2, 4, ... threads up to the
+     * number of available processors, and reporting the speedup over a single thread
+     * @param index The index of the fibonacci sequence to benchmark the parallel generator with
+     */
+    static void benchmarkParallelScalingDriver(long index)
+    {
+        System.out.printf("%8s\t%10s\t%8s\t%16s\t%8s\n", "Threads", "Index", "Ops", "ns/op", "Speedup");
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        double singleThreadTime = 0d;
+        for (int threads = 1; threads <= processors; threads = (threads == processors) ? threads + 1
+                : Math.min(threads * 2, processors))
+        {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try
+            {
+                BigInteger bigIndex = BigInteger.valueOf(index);
+                blackhole ^= FibonacciParallel.findFibonacciPairParallel(bigIndex, pool)[0].bitLength(); // Warm up
+
+                long operations = 0L;
+                long startTime = System.nanoTime();
+                long endTime = startTime + MEASUREMENT_NANOS;
+                do
+                {
+                    blackhole ^= FibonacciParallel.findFibonacciPairParallel(bigIndex, pool)[0].bitLength();
+                    ++operations;
+                } while (System.nanoTime() < endTime);
+
+                double time = (double) (System.nanoTime() - startTime) / operations;
+                if (threads == 1)
+                    singleThreadTime = time;
+                System.out.printf("%8d\t%10d\t%8d\t%16.1f\t%8.2f\n", threads, index, operations, time,
+                        singleThreadTime / time);
+            }
+            finally
+            {pool.shutdown();}
+        }
+    } // End of the benchmarkParallelScalingDriver method
+
+    /**
+     * Measures the bulk encoding and decoding throughput of FibonacciCodec, over random values whose bit lengths are
+     * spread evenly from 1 to 62 bits, and checks that every value decodes back to itself, both in one call and a few
+     * values at a time
+     * @param count The number of values to encode and decode in each pass
+     */
+    static void benchmarkCodecDriver(int count)
+    {
+        SplittableRandom random = new SplittableRandom(11235L); // Fixed, so that every run measures the same values
+        long[] values = new long[count];
+        long codeBits = 0L;
+        for (int i = 0; i < count; ++i)
+        {
+            values[i] = (random.nextLong() >>> (2 + random.nextInt(62))) + 1L;
+            codeBits += FibonacciCodec.getCodeLength(values[i]);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact((codeBits + Byte.SIZE - 1L) / Byte.SIZE));
+        long[] decoded = new long[count];
+        System.out.printf("%-10s\t%10s\t%12s\t%8s\t%12s\t%12s\n",
+                "Operation", "Values", "Bytes", "Passes", "MB/s", "Mvalues/s");
+
+        runCodecFor(true, values, decoded, buffer, WARMUP_NANOS);
+        printCodecResults("encode", values.length, buffer.limit(), runCodecFor(true, values, decoded, buffer,
+                MEASUREMENT_NANOS));
+
+        runCodecFor(false, values, decoded, buffer, WARMUP_NANOS);
+        printCodecResults("decode", values.length, buffer.limit(), runCodecFor(false, values, decoded, buffer,
+                MEASUREMENT_NANOS));
+
+        if (!Arrays.equals(values, decoded))
+            throw new IllegalStateException("Error: the codec did not decode every value back to itself");
+
+        // Decodes the same codes again a few at a time, as a stream reader would, so that codes which end partway
+        // through a byte have to be carried over from one call to the next
+        Arrays.fill(decoded, 0L);
+        buffer.rewind();
+        FibonacciCodec.Decoder decoder = new FibonacciCodec.Decoder();
+        for (int offset = 0, chunk; offset < count; offset += chunk)
+        {
+            chunk = decoder.decode(buffer, decoded, offset, Math.min(1 + random.nextInt(8), count - offset));
+            if (chunk == 0)
+                throw new IllegalStateException("Error: the codec ran out of codes after " + offset + " values");
+        }
+        if (!Arrays.equals(values, decoded))
+            throw new IllegalStateException("Error: the codec did not decode every value back to itself in chunks");
+        System.out.printf("Every value decoded back to itself, whole and in chunks, at %.2f bits per value\n",
+                (double) codeBits / count);
+    } // End of the benchmarkCodecDriver method
+
+    /**
+     * Warms up, then measures a single generator at a single index
+     * @param generator The generator to benchmark
+     * @param index The index of the fibonacci sequence to benchmark the generator with
+     */
+    private static void benchmarkGenerator(FibonacciGenerator generator, BigInteger index)
+    {
+        runFor(generator, index, WARMUP_NANOS);
+
+        long allocatedBefore = getAllocatedBytes();
+        long gcCountBefore = getGarbageCollectionCount();
+        long gcTimeBefore = getGarbageCollectionTime();
+        long startTime = System.nanoTime();
+
+        long operations = runFor(generator, index, MEASUREMENT_NANOS);
+
+        long elapsedTime = System.nanoTime() - startTime;
+        long allocatedAfter = getAllocatedBytes();
+        long gcCount = getGarbageCollectionCount() - gcCountBefore;
+        long gcTime = getGarbageCollectionTime() - gcTimeBefore;
+
+        String bytesPerOperation = "n/a";
+        if ((allocatedBefore >= 0L) && (allocatedAfter >= 0L))
+            bytesPerOperation = Long.toString((allocatedAfter - allocatedBefore) / operations);
+
+        System.out.printf("%-20s\t%10d\t%8d\t%16.1f\t%16s\t%8d\t%12d\n", generator, index, operations,
+                (double) elapsedTime / operations, bytesPerOperation, gcCount, gcTime);
+    } // End of the benchmarkGenerator method
+
+    /**
+     * Repeatedly runs a generator until the given amount of time has passed, running it at least once
+     * @param generator The generator to run
+     * @param index The index of the fibonacci sequence to run the generator with
+     * @param duration How long to keep running the generator for, in nanoseconds
+     * @return Returns the number of times the generator was run
+     */
+    private static long runFor(FibonacciGenerator generator, BigInteger index, long duration)
+    {
+        long operations = 0L;
+        long endTime = System.nanoTime() + duration;
+        do
+        {
+            blackhole ^= generator.generate(index).bitLength();
+            ++operations;
+        } while (System.nanoTime() < endTime);
+        return operations;
+    } // End of the runFor method
+
+    /**
+     * Repeatedly encodes (or decodes) every value until the given amount of time has passed, running at least once
+     * @param isEncoding Whether to encode the values, rather than decode them
+     * @param values The values to encode
+     * @param decoded The array to decode the values into
+     * @param buffer The buffer to encode the values into, which is left holding the encoded values
+     * @param duration How long to keep encoding (or decoding) for, in nanoseconds
+     * @return Returns the number of passes over the values, and the elapsed time in nanoseconds
+     */
+    private static long[] runCodecFor(boolean isEncoding, long[] values, long[] decoded, ByteBuffer buffer,
+            long duration)
+    {
+        long passes = 0L;
+        long startTime = System.nanoTime();
+        long endTime = startTime + duration;
+        do
+        {
+            if (isEncoding)
+            {
+                buffer.clear();
+                FibonacciCodec.encode(values, 0, values.length, buffer);
+                buffer.flip();
+            }
+            else
+            {
+                buffer.rewind();
+                FibonacciCodec.decode(buffer, decoded, 0, decoded.length);
+            }
+            ++passes;
+        } while (System.nanoTime() < endTime);
+        return new long[] {passes, System.nanoTime() - startTime};
+    } // End of the runCodecFor method
+
+    /**
+     * Prints one line of the codec benchmark's results
+     * @param operation The name of the operation that was measured
+     * @param count The number of values in each pass
+     * @param bytes The number of encoded bytes in each pass
+     * @param results The number of passes, and the elapsed time in nanoseconds
+     */
+    private static void printCodecResults(String operation, int count, int bytes, long[] results)
+    {
+        double seconds = results[1] / 1e9d;
+        System.out.printf("%-10s\t%10d\t%12d\t%8d\t%12.1f\t%12.1f\n", operation, count, bytes, results[0],
+                bytes * results[0] / seconds / 1e6d, count * results[0] / seconds / 1e6d);
+    } // End of the printCodecResults method
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Gets the total number of bytes allocated by the current thread so far
+     * @return Returns the number of bytes allocated, or -1 if the JVM cannot measure allocations
+     */
+    static long getAllocatedBytes()
+    {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean))
+            return -1L;
+
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!allocationBean.isThreadAllocatedMemorySupported() || !allocationBean.isThreadAllocatedMemoryEnabled())
+            return -1L;
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    } // End of the getAllocatedBytes method
+
+    /**
+     * [Helper Method] Gets the total number of garbage collections across all collectors so far
+     * @return Returns the number of garbage collections
+     */
+    private static long getGarbageCollectionCount()
+    {
+        long count = 0L;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(collector.getCollectionCount(), 0L);
+        return count;
+    } // End of the getGarbageCollectionCount method
+
+    /**
+     * [Helper Method] Gets the total time spent in garbage collection across all collectors so far
+     * @return Returns the time spent in garbage collection, in milliseconds
+     */
+    private static long getGarbageCollectionTime()
+    {
+        long time = 0L;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            time += Math.max(collector.getCollectionTime(), 0L);
+        return time;
+    } // End of the getGarbageCollectionTime method
+
+    /************************* END OF HELPER METHODS *************************/
+} // End of the FibonacciBenchmark class
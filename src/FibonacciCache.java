@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe cache of sparse fibonacci checkpoints, each holding the pair (F(k), F(k + 1)), so that a query for
+ * F(n) can start from a nearby checkpoint instead of starting from F(0).
+ *
+ * Reads never take a lock, since the checkpoints live in a concurrent skip list. The checkpoints are kept under a
+ * byte budget, and once it is exceeded the least recently used checkpoints are evicted until it fits again.
+ *
+ * The cache may also be backed by a FibonacciCheckpointStore, in which case large checkpoints are written through to
+ * disk, and checkpoints that are not in memory are looked up on disk, so that later runs start warm
+ */
+class FibonacciCache
+{
+    static final long DEFAULT_BYTE_BUDGET = 64L * 1024L * 1024L;
+
+    // Pairs below this index are cheap enough to recalculate that they are not worth a checkpoint
+    private static final long MIN_CHECKPOINT_INDEX = 1024L;
+    // Rough per-checkpoint overhead of the map entry, the pair array and the BigInteger headers
+    private static final long CHECKPOINT_OVERHEAD_BYTES = 160L;
+    // Pairs below this index are quick enough to recalculate that they are not worth writing to disk
+    private static final long MIN_PERSISTED_INDEX = 1L << 16;
+
+    private final long byteBudget;
+    private final ConcurrentSkipListMap<Long, Checkpoint> checkpoints = new ConcurrentSkipListMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final Object evictionLock = new Object();
+    private final FibonacciCheckpointStore persistentStore; // Null when the cache is only kept in memory
+    private volatile boolean isPersistent;
+
+    // Statistics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache
+     * @param byteBudget The approximate number of bytes the cached checkpoints may take up
+     */
+    FibonacciCache(long byteBudget)
+    {
+        this(byteBudget, null);
+    } // End of the FibonacciCache constructor
+
+    /**
+     * Creates a cache that is backed by a persistent checkpoint store
+     * @param byteBudget The approximate number of bytes the checkpoints cached in memory may take up
+     * @param persistentStore The checkpoint store to read checkpoints from and write them through to, or null
+     */
+    FibonacciCache(long byteBudget, FibonacciCheckpointStore persistentStore)
+    {
+        this.byteBudget = byteBudget;
+        this.persistentStore = persistentStore;
+        this.isPersistent = (persistentStore != null);
+    } // End of the FibonacciCache constructor
+
+    /**
+     * Finds the `n`th fibonacci number, starting from the nearest checkpoint if there is one
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     */
+    BigInteger get(long index)
+    {
+        return getPair(index)[0];
+    } // End of the get method
+
+    /**
+     * Finds the pair (F(n), F(n + 1)). In order of preference, the pair is found by:
+     *      1. Adding forwards from a checkpoint at most FibonacciFinder.LINEAR_STEP_LIMIT indices below `n`
+     *      2. Jumping forwards from the nearest lower checkpoint with the addition identities, when it is at most
+     *         FibonacciFinder.JUMP_GAP_LIMIT indices below `n` (any further, and the jump costs more than doubling)
+     *      3. Doubling from the longest binary prefix of `n` that has a checkpoint
+     *      4. Doubling from F(0), which is the only case counted as a miss
+     * Pairs visited while doubling are stored as new checkpoints. Checkpoints on disk count the same as those in memory
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @return Returns an array of {F(n), F(n + 1)}, where `n` is the index number given
+     */
+    BigInteger[] getPair(long index)
+    {
+        if (index < 0L)
+            throw new IllegalArgumentException("Error: input number should not be negative");
+
+        Map.Entry<Long, BigInteger[]> floorEntry = findFloorCheckpoint(index);
+        if (floorEntry != null)
+        {
+            long checkpointIndex = floorEntry.getKey();
+            long gap = index - checkpointIndex;
+            BigInteger[] values = floorEntry.getValue();
+
+            if (gap <= FibonacciFinder.LINEAR_STEP_LIMIT)
+            {
+                hits.increment();
+                return FibonacciFinder.findSteppedFibonacciPair(values, gap);
+            }
+            if (gap <= FibonacciFinder.JUMP_GAP_LIMIT)
+            {
+                hits.increment();
+                BigInteger[] gapValues = FibonacciFinder.findFibonacciPairFastDoubling(BigInteger.valueOf(gap));
+                values = FibonacciFinder.findSummedFibonacciPair(values, gapValues);
+                store(index, values);
+                return values;
+            }
+        }
+
+        // Finds the longest prefix of the index's bits that has a checkpoint, and doubles from there
+        int shift = 1;
+        BigInteger[] values = null;
+        for (; (index >>> shift) >= MIN_CHECKPOINT_INDEX; ++shift)
+        {
+            values = findCheckpoint(index >>> shift);
+            if (values != null)
+                break;
+        }
+
+        if (values == null)
+        {
+            misses.increment();
+            shift = 64 - Long.numberOfLeadingZeros(index);
+            values = new BigInteger[] {BigInteger.ZERO, BigInteger.ONE};
+        }
+        else
+            hits.increment();
+
+        for (int bit = shift - 1; bit >= 0; --bit)
+        {
+            values = FibonacciFinder.findDoubledFibonacciPair(values, ((index >>> bit) & 1L) == 1L);
+            store(index >>> bit, values);
+        }
+        return values;
+    } // End of the getPair method
+
+    /**
+     * Stores the pair (F(k), F(k + 1)) as a checkpoint, evicting the least recently used checkpoints if the cache
+     * goes over its byte budget. Pairs with small indices, or that are larger than the whole budget, are not stored
+     * in memory. Large pairs are also written through to the persistent store, if there is one
+     * @param index The index `k` of the pair
+     * @param values An array of {F(k), F(k + 1)}
+     */
+    void store(long index, BigInteger[] values)
+    {
+        if (index < MIN_CHECKPOINT_INDEX)
+            return;
+
+        if (isPersistent && (index >= MIN_PERSISTED_INDEX) && !persistentStore.contains(index))
+        {
+            try
+            {persistentStore.append(index, values);}
+            catch (IOException e)
+            {disablePersistence(e);}
+        }
+
+        long bytes = ((values[0].bitLength() + values[1].bitLength()) / 8L) + CHECKPOINT_OVERHEAD_BYTES;
+        if (bytes > byteBudget)
+            return;
+
+        Checkpoint checkpoint = new Checkpoint(values.clone(), bytes, clock.incrementAndGet());
+        if (checkpoints.putIfAbsent(index, checkpoint) != null)
+            return;
+
+        if (usedBytes.addAndGet(bytes) > byteBudget)
+            evict();
+    } // End of the store method
+
+    /**
+     * Evicts the least recently used checkpoints until the cache is back under 7/8ths of its byte budget, so that
+     * every following store does not immediately have to evict again. Only one thread evicts at a time, while readers
+     * carry on without blocking
+     */
+    private void evict()
+    {
+        synchronized (evictionLock)
+        {
+            if (usedBytes.get() <= byteBudget)
+                return;
+
+            // Snapshots the access times first, since readers keep updating them while we sort
+            List<long[]> accessTimes = new ArrayList<>(checkpoints.size());
+            for (Map.Entry<Long, Checkpoint> entry : checkpoints.entrySet())
+                accessTimes.add(new long[] {entry.getValue().lastAccess, entry.getKey()});
+            accessTimes.sort((first, second) -> Long.compare(first[0], second[0]));
+
+            long targetBytes = byteBudget - (byteBudget / 8L);
+            for (long[] accessTime : accessTimes)
+            {
+                if (usedBytes.get() <= targetBytes)
+                    break;
+                Checkpoint checkpoint = checkpoints.remove(accessTime[1]);
+                if (checkpoint != null)
+                {
+                    usedBytes.addAndGet(-checkpoint.bytes);
+                    evictions.increment();
+                }
+            }
+        }
+    } // End of the evict method
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Finds the checkpoint with the largest index at or below the given index, whether it is in memory
+     * or on disk. Checkpoints read from disk are cached in memory too
+     * @param index The index to search from
+     * @return Returns the checkpoint's index and a copy of its pair, or null if there is no such checkpoint
+     */
+    private Map.Entry<Long, BigInteger[]> findFloorCheckpoint(long index)
+    {
+        Map.Entry<Long, Checkpoint> floorEntry = checkpoints.floorEntry(index);
+        long checkpointIndex = (floorEntry == null) ? -1L : floorEntry.getKey();
+
+        if (isPersistent)
+        {
+            long persistedIndex = persistentStore.floorIndex(index);
+            if (persistedIndex > checkpointIndex)
+            {
+                BigInteger[] values = findCheckpoint(persistedIndex);
+                if (values != null)
+                    return Map.entry(persistedIndex, values);
+            }
+        }
+
+        if (floorEntry == null)
+            return null;
+        return Map.entry(checkpointIndex, floorEntry.getValue().touch(clock.incrementAndGet()).clone());
+    } // End of the findFloorCheckpoint method
+
+    /**
+     * [Helper Method] Finds the checkpoint for exactly the given index, looking in memory first and then on disk
+     * @param index The index `k` of the checkpoint
+     * @return Returns a copy of the pair {F(k), F(k + 1)}, or null if there is no checkpoint for `k`
+     */
+    private BigInteger[] findCheckpoint(long index)
+    {
+        Checkpoint checkpoint = checkpoints.get(index);
+        if (checkpoint != null)
+            return checkpoint.touch(clock.incrementAndGet()).clone();
+        if (!isPersistent || !persistentStore.contains(index))
+            return null;
+
+        try
+        {
+            BigInteger[] values = persistentStore.getPair(index);
+            if (values != null)
+                store(index, values);
+            return values;
+        }
+        catch (IOException e)
+        {
+            disablePersistence(e);
+            return null;
+        }
+    } // End of the findCheckpoint method
+
+    /**
+     * [Helper Method] Stops using the persistent store after it fails, carrying on with the in-memory cache only
+     * @param e The exception the persistent store failed with
+     */
+    private void disablePersistence(IOException e)
+    {
+        if (isPersistent)
+        {
+            isPersistent = false;
+            System.err.println("Warning: checkpoint file failed, carrying on without it: " + e.getMessage());
+        }
+    } // End of the disablePersistence method
+
+    /************************* END OF HELPER METHODS *************************/
+
+    /************************* START OF STATISTICS *************************/
+
+    long getHits() {return hits.sum();}
+
+    long getMisses() {return misses.sum();}
+
+    long getEvictions() {return evictions.sum();}
+
+    long getUsedBytes() {return usedBytes.get();}
+
+    long getByteBudget() {return byteBudget;}
+
+    int getCheckpointCount() {return checkpoints.size();}
+
+    int getPersistedCheckpointCount() {return isPersistent ? persistentStore.getCheckpointCount() : 0;}
+
+    @Override
+    public String toString()
+    {
+        return String.format("hits=%d misses=%d evictions=%d checkpoints=%d bytes=%d/%d",
+                getHits(), getMisses(), getEvictions(), getCheckpointCount(), getUsedBytes(), getByteBudget());
+    } // End of the toString method
+
+    /************************* END OF STATISTICS *************************/
+
+    /**
+     * A single cached pair, along with its size and when it was last used
+     */
+    private static final class Checkpoint
+    {
+        private final BigInteger[] values;
+        private final long bytes;
+        private volatile long lastAccess;
+
+        private Checkpoint(BigInteger[] values, long bytes, long lastAccess)
+        {
+            this.values = values;
+            this.bytes = bytes;
+            this.lastAccess = lastAccess;
+        }
+
+        private BigInteger[] touch(long time)
+        {
+            lastAccess = time;
+            return values;
+        }
+    } // End of the Checkpoint class
+} // End of the FibonacciCache class
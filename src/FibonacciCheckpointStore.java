@@ -0,0 +1,237 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent, append-only file of fibonacci checkpoints (F(k), F(k + 1)), so that a new run can resume from the
+ * values calculated by earlier runs instead of starting cold.
+ *
+ * The file starts with the magic bytes "FIBCKP01", followed by one record per checkpoint:
+ *      [k: 8 bytes][length of F(k): 4 bytes][length of F(k + 1): 4 bytes][F(k)][F(k + 1)][CRC32 of the record: 4 bytes]
+ * where both values are stored as their raw big-endian two's complement bytes, i.e. BigInteger.toByteArray().
+ *
+ * Only the record offsets are held in memory, while the records themselves are memory mapped when they are read.
+ * Every append (and the scan on opening) holds an exclusive lock on the file, so several processes may share one
+ * checkpoint file. A record whose CRC does not match can only be the tail of an interrupted write, so the file is
+ * truncated back to the last intact record
+ */
+class FibonacciCheckpointStore implements Closeable
+{
+    private static final long MAGIC = 0x464942434B503031L; // "FIBCKP01"
+    private static final int HEADER_BYTES = Long.BYTES;
+    private static final int RECORD_HEADER_BYTES = Long.BYTES + (2 * Integer.BYTES);
+    private static final int RECORD_TRAILER_BYTES = Integer.BYTES;
+
+    private final FileChannel channel;
+    private final ConcurrentSkipListMap<Long, Long> offsets = new ConcurrentSkipListMap<>(); // Index to record offset
+    private long end; // The end of the last intact record, guarded by `this`
+
+    /**
+     * Opens a checkpoint file, creating it if it does not exist yet (or is empty), and truncating any torn record at
+     * its end
+     * @param path The file path to the checkpoint file
+     * @throws IOException Throws an exception if the file cannot be opened, or is a non-empty file that does not start
+     * with the magic bytes
+     */
+    FibonacciCheckpointStore(Path path) throws IOException
+    {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try
+        {
+            FileLock lock = channel.lock();
+            try
+            {
+                // Only an empty file is taken over, so a mistyped path cannot overwrite some other file
+                if (channel.size() == 0L)
+                {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(MAGIC);
+                    header.flip();
+                    writeFully(header, 0L);
+                    channel.force(false);
+                }
+                else if ((channel.size() < HEADER_BYTES) || (readBuffer(0L, HEADER_BYTES).getLong() != MAGIC))
+                    throw new IOException("Error: " + path + " is not a checkpoint file");
+
+                end = HEADER_BYTES;
+                scanRecords();
+            }
+            finally
+            {lock.release();}
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    } // End of the FibonacciCheckpointStore constructor
+
+    /**
+     * Finds the checkpoint with the largest index that is at most the given index
+     * @param index The index to search from
+     * @return Returns the index of the nearest checkpoint at or below the given index, or -1 if there is none
+     */
+    long floorIndex(long index)
+    {
+        Map.Entry<Long, Long> entry = offsets.floorEntry(index);
+        return (entry == null) ? -1L : entry.getKey();
+    } // End of the floorIndex method
+
+    boolean contains(long index) {return offsets.containsKey(index);}
+
+    int getCheckpointCount() {return offsets.size();}
+
+    /**
+     * Reads a checkpoint from the file
+     * @param index The index `k` of the checkpoint
+     * @return Returns an array of {F(k), F(k + 1)}, or null if there is no checkpoint for `k`
+     * @throws IOException Throws an exception if the file cannot be read
+     */
+    BigInteger[] getPair(long index) throws IOException
+    {
+        Long offset = offsets.get(index);
+        if (offset == null)
+            return null;
+
+        ByteBuffer header = readBuffer(offset, RECORD_HEADER_BYTES);
+        header.getLong();
+        int firstLength = header.getInt();
+        int secondLength = header.getInt();
+
+        ByteBuffer record = channel.map(FileChannel.MapMode.READ_ONLY, offset + RECORD_HEADER_BYTES,
+                (long) firstLength + secondLength);
+        byte[] firstBytes = new byte[firstLength];
+        byte[] secondBytes = new byte[secondLength];
+        record.get(firstBytes).get(secondBytes);
+        return new BigInteger[] {new BigInteger(firstBytes), new BigInteger(secondBytes)};
+    } // End of the getPair method
+
+    /**
+     * Appends a checkpoint to the end of the file, unless this process or another has already stored it. The record is
+     * forced to disk before it is indexed, so a checkpoint that has been stored survives a crash
+     * @param index The index `k` of the checkpoint
+     * @param values An array of {F(k), F(k + 1)}
+     * @throws IOException Throws an exception if the file cannot be written
+     */
+    synchronized void append(long index, BigInteger[] values) throws IOException
+    {
+        if (offsets.containsKey(index))
+            return;
+
+        byte[] firstBytes = values[0].toByteArray();
+        byte[] secondBytes = values[1].toByteArray();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES)
+                .putLong(index).putInt(firstBytes.length).putInt(secondBytes.length);
+        header.flip();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(header.duplicate());
+        checksum.update(firstBytes);
+        checksum.update(secondBytes);
+        ByteBuffer trailer = ByteBuffer.allocate(RECORD_TRAILER_BYTES).putInt((int) checksum.getValue());
+        trailer.flip();
+
+        FileLock lock = channel.lock();
+        try
+        {
+            scanRecords(); // Picks up anything other processes appended since our last look
+            if (offsets.containsKey(index))
+                return;
+
+            long offset = end;
+            long position = offset;
+            for (ByteBuffer buffer : new ByteBuffer[] {header, ByteBuffer.wrap(firstBytes),
+                    ByteBuffer.wrap(secondBytes), trailer})
+                position += writeFully(buffer, position);
+            channel.force(false);
+
+            end = position;
+            offsets.put(index, offset);
+        }
+        finally
+        {lock.release();}
+    } // End of the append method
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    } // End of the close method
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Scans every record from the end of the last known record to the end of the file, checking each
+     * one's CRC before indexing it. Everything from the first damaged or incomplete record onwards is truncated. Must
+     * be called while holding the file lock
+     * @throws IOException Throws an exception if the file cannot be read or truncated
+     */
+    private synchronized void scanRecords() throws IOException
+    {
+        long size = channel.size();
+        while (end + RECORD_HEADER_BYTES + RECORD_TRAILER_BYTES <= size)
+        {
+            ByteBuffer header = readBuffer(end, RECORD_HEADER_BYTES);
+            long index = header.getLong();
+            long firstLength = header.getInt();
+            long secondLength = header.getInt();
+            long recordBytes = RECORD_HEADER_BYTES + firstLength + secondLength + RECORD_TRAILER_BYTES;
+            if ((index < 0L) || (firstLength <= 0L) || (secondLength <= 0L) || (end + recordBytes > size))
+                break;
+
+            ByteBuffer record = channel.map(FileChannel.MapMode.READ_ONLY, end, recordBytes);
+            CRC32 checksum = new CRC32();
+            checksum.update(record.duplicate().limit((int) (recordBytes - RECORD_TRAILER_BYTES)));
+            if (record.getInt((int) (recordBytes - RECORD_TRAILER_BYTES)) != (int) checksum.getValue())
+                break;
+
+            offsets.putIfAbsent(index, end);
+            end += recordBytes;
+        }
+
+        if (end < size)
+            channel.truncate(end); // A torn write from a process that died mid-append
+    } // End of the scanRecords method
+
+    /**
+     * [Helper Method] Reads a small, fixed number of bytes from the file
+     * @param position The offset to read from
+     * @param length The number of bytes to read
+     * @return Returns a buffer holding the bytes, ready to be read
+     * @throws IOException Throws an exception if the file ends before all the bytes were read
+     */
+    private ByteBuffer readBuffer(long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Error: checkpoint file ended unexpectedly");
+        buffer.flip();
+        return buffer;
+    } // End of the readBuffer method
+
+    /**
+     * [Helper Method] Writes the whole of a buffer to the file
+     * @param buffer The bytes to write
+     * @param position The offset to write them at
+     * @return Returns the number of bytes written
+     * @throws IOException Throws an exception if the file cannot be written
+     */
+    private int writeFully(ByteBuffer buffer, long position) throws IOException
+    {
+        int written = 0;
+        while (buffer.hasRemaining())
+            written += channel.write(buffer, position + written);
+        return written;
+    } // End of the writeFully method
+
+    /************************* END OF HELPER METHODS *************************/
+} // End of the FibonacciCheckpointStore class
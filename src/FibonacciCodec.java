@@ -0,0 +1,377 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Zeckendorf representations and fibonacci codes (a universal code for positive integers), built on FibonacciTable's
+ * long table. Every positive long is a sum of non-consecutive fibonacci numbers F(2), F(3), ..., F(92), and its
+ * fibonacci code is that sum as a bit string, where bit i means F(i + 2) is in the sum, followed by an extra 1 bit. As
+ * no sum has two consecutive 1 bits, the first `11` in a stream always ends a code.
+ *
+ * Codes are packed into bytes least significant bit first. Encoding is greedy: the largest fibonacci number that fits
+ * is found from the value's bit length and at most two branch-free corrections, since at most two fibonacci numbers
+ * share a bit length. Decoding reads a byte at a time through a lookup table of every (byte, previous bit) pair, which
+ * gives the codes that end in the byte and the contribution of its other bits. Those bits are weighted by their
+ * position `p` in the code with F(p + j + 2) = F(p + 2)F(j + 1) + F(p + 1)F(j), so the table only needs two small
+ * sums per entry
+ */
+final class FibonacciCodec
+{
+    // The longest code, for values of at least F(92), is 91 sum bits followed by the terminating bit
+    private static final int MAX_CODE_BITS = FibonacciTable.MAX_LONG_INDEX;
+
+    // WEIGHTS[i] = F(i) for every index a code can reach, where F(93) has wrapped around to fit in 64 (unsigned) bits
+    private static final long[] WEIGHTS = new long[FibonacciTable.MAX_LONG_INDEX + 2];
+    // LARGEST_INDICES[b] = the largest index k >= 2 where F(k) has at most b bits
+    private static final int[] LARGEST_INDICES = new int[Long.SIZE];
+
+    // The decoding tables, indexed by (previous bit << 8) | byte. A byte can end at most 4 codes
+    private static final int MAX_EVENTS = 4;
+    private static final int STATES = 2 << Byte.SIZE;
+    private static final int[] EVENT_COUNTS = new int[STATES];
+    private static final int[] FIRST_TERMINATORS = new int[STATES]; // The bit of the byte that ends the first code
+    private static final int[] EVENT_A = new int[STATES * MAX_EVENTS]; // The sum of F(j + 1) over each code's bits j
+    private static final int[] EVENT_B = new int[STATES * MAX_EVENTS]; // The sum of F(j) over each code's bits j
+    private static final int[] TAIL_A = new int[STATES];
+    private static final int[] TAIL_B = new int[STATES];
+    private static final int[] TAIL_LENGTHS = new int[STATES]; // The number of bits after the last code that ends
+    private static final int[] TAIL_PREVIOUS = new int[STATES]; // The last bit, unless it ended a code
+
+    static
+    {
+        for (int i = 0; i <= FibonacciTable.MAX_LONG_INDEX; ++i)
+            WEIGHTS[i] = FibonacciTable.getLong(i);
+        WEIGHTS[FibonacciTable.MAX_LONG_INDEX + 1] = WEIGHTS[FibonacciTable.MAX_LONG_INDEX] +
+                WEIGHTS[FibonacciTable.MAX_LONG_INDEX - 1];
+
+        for (int bits = 0, index = 2; bits < Long.SIZE; ++bits)
+        {
+            while ((index < FibonacciTable.MAX_LONG_INDEX) &&
+                    ((Long.SIZE - Long.numberOfLeadingZeros(WEIGHTS[index + 1])) <= bits))
+                ++index;
+            LARGEST_INDICES[bits] = index;
+        }
+
+        for (int state = 0; state < STATES; ++state)
+            buildState(state);
+    }
+
+    private FibonacciCodec() {}
+
+    /**
+     * Finds the Zeckendorf representation of a value, writing it into a caller-provided array so that nothing is
+     * allocated
+     * @param value The value to represent, which should not be negative
+     * @param result An array of at least 2 longs, which is set to {upper 64 bits, lower 64 bits} of the representation,
+     * where bit i is set if F(i + 2) is in the sum
+     */
+    static void toZeckendorf(long value, long[] result)
+    {
+        if (value < 0L)
+            throw new IllegalArgumentException("Error: input number should not be negative");
+
+        if (value == 0L)
+        {
+            result[0] = 0L;
+            result[1] = 0L;
+            return;
+        }
+
+        // Every fibonacci number at or below the largest that fits is taken if it still fits, without branching. Taking
+        // F(k) leaves less than F(k - 1), so no two consecutive numbers are ever taken
+        int largestIndex = getLargestIndex(value);
+        long high = 0L;
+        for (int index = largestIndex; index >= Long.SIZE + 2; --index)
+        {
+            long isTaken = (WEIGHTS[index] - value - 1L) >>> 63;
+            value -= WEIGHTS[index] & -isTaken;
+            high |= isTaken << (index - 2 - Long.SIZE);
+        }
+        long low = 0L;
+        for (int index = Math.min(largestIndex, Long.SIZE + 1); index >= 2; --index)
+        {
+            long isTaken = (WEIGHTS[index] - value - 1L) >>> 63;
+            value -= WEIGHTS[index] & -isTaken;
+            low |= isTaken << (index - 2);
+        }
+        result[0] = high;
+        result[1] = low;
+    } // End of the toZeckendorf method
+
+    /**
+     * Sums a Zeckendorf representation
+     * @param high The upper 64 bits of the representation
+     * @param low The lower 64 bits of the representation
+     * @return Returns the value represented
+     * @throws ArithmeticException When the value does not fit in a long
+     */
+    static long fromZeckendorf(long high, long low)
+    {
+        if (((low & (low >>> 1)) != 0L) || ((high & ((high >>> 1) | (low >>> 63))) != 0L))
+            throw new IllegalArgumentException("Error: a Zeckendorf representation cannot use consecutive fibonacci " +
+                    "numbers");
+        if ((high >>> (MAX_CODE_BITS - 1 - Long.SIZE)) != 0L)
+            throw new ArithmeticException("Error: the Zeckendorf representation does not fit in a long");
+
+        long value = 0L;
+        for (long bits = low; bits != 0L; bits &= bits - 1L)
+            value += WEIGHTS[Long.numberOfTrailingZeros(bits) + 2];
+        for (long bits = high; bits != 0L; bits &= bits - 1L)
+            value += WEIGHTS[Long.numberOfTrailingZeros(bits) + Long.SIZE + 2];
+        if (value < 0L) // The largest representation is F(93) - 1, so the sum has only wrapped into the sign bit
+            throw new ArithmeticException("Error: the Zeckendorf representation does not fit in a long");
+        return value;
+    } // End of the fromZeckendorf method
+
+    /**
+     * Finds the length of a value's fibonacci code
+     * @param value The value to encode, which should be positive
+     * @return Returns the number of bits in the value's code, which is the index of the largest fibonacci number that
+     * fits in it
+     */
+    static int getCodeLength(long value)
+    {
+        if (value < 1L)
+            throw new IllegalArgumentException("Error: only positive numbers have a fibonacci code");
+        return getLargestIndex(value);
+    } // End of the getCodeLength method
+
+    /**
+     * Encodes values as fibonacci codes, packed least significant bit first from the buffer's position. The last byte
+     * is padded with 0 bits, which decode() ignores
+     * @param values The array holding the values to encode, which should all be positive
+     * @param offset The position of the first value in the array
+     * @param length The number of values to encode
+     * @param out The buffer to write the codes into, whose position is moved past them
+     * @return Returns the number of bytes written
+     * @throws java.nio.BufferOverflowException When the buffer does not have room for every code
+     */
+    static int encode(long[] values, int offset, int length, ByteBuffer out)
+    {
+        int start = out.position();
+        boolean isBigEndian = (out.order() == ByteOrder.BIG_ENDIAN);
+        long pending = 0L; // Bits that have not been written yet, the first in the lowest bit
+        int pendingCount = 0;
+        long[] representation = new long[2];
+
+        for (int i = offset; i < offset + length; ++i)
+        {
+            long value = values[i];
+            if (value < 1L)
+                throw new IllegalArgumentException("Error: only positive numbers have a fibonacci code, but value " +
+                        (i - offset) + " was " + value);
+
+            int codeLength = getLargestIndex(value);
+            toZeckendorf(value, representation);
+            long high = representation[0];
+            long low = representation[1];
+            if (codeLength <= Long.SIZE)
+                low |= 1L << (codeLength - 1); // The terminating bit, straight after the largest one
+            else
+                high |= 1L << (codeLength - 1); // Shift distances are taken mod 64, so this sets bit codeLength - 65
+
+            // The code is added 32 bits at a time, and each 32 bits is written as soon as it is complete, so fewer than
+            // 32 bits are ever pending
+            for (int shift = 0; shift < codeLength; shift += Integer.SIZE)
+            {
+                long word = ((shift < Long.SIZE) ? (low >>> shift) : high) & 0xFFFFFFFFL;
+                pending |= word << pendingCount;
+                pendingCount += Math.min(codeLength - shift, Integer.SIZE);
+                if (pendingCount >= Integer.SIZE)
+                {
+                    int bits = (int) pending;
+                    out.putInt(isBigEndian ? Integer.reverseBytes(bits) : bits);
+                    pending >>>= Integer.SIZE;
+                    pendingCount -= Integer.SIZE;
+                }
+            }
+        }
+        for (; pendingCount > 0; pendingCount -= Byte.SIZE, pending >>>= Byte.SIZE)
+            out.put((byte) pending);
+        return out.position() - start;
+    } // End of the encode method
+
+    /**
+     * Decodes fibonacci codes packed least significant bit first from the buffer's position, as written by encode().
+     * The codes are read a whole byte at a time, so a call has to read up to the end of a byte, such as every code
+     * written by one encode() call. Use a Decoder to read a stream of codes in smaller pieces
+     * @param in The buffer to read the codes from, whose position is moved past the last byte read
+     * @param values The array to write the decoded values into
+     * @param offset The position in the array of the first value
+     * @param length The number of values to decode
+     * @return Returns the number of bytes read
+     * @throws IllegalArgumentException When the buffer runs out before `length` codes, holds an invalid code, or has
+     * part of another code in the last byte read. The buffer's position is then left where it was
+     */
+    static int decode(ByteBuffer in, long[] values, int offset, int length)
+    {
+        int start = in.position();
+        Decoder decoder = new Decoder();
+        int decoded = decoder.decode(in, values, offset, length);
+
+        if (decoded < length)
+        {
+            in.position(start);
+            throw new IllegalArgumentException("Error: the buffer only held " + decoded + " of " + length +
+                    " fibonacci codes");
+        }
+        if (!decoder.isAtCodeBoundary())
+        {
+            in.position(start);
+            throw new IllegalArgumentException("Error: the last byte read also held part of the next fibonacci code, " +
+                    "so the codes should be read with a FibonacciCodec.Decoder");
+        }
+        return in.position() - start;
+    } // End of the decode method
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Finds the largest fibonacci number that fits in a value, without branching. F(k) has the same bit
+     * length as the value for at most two indices k, so the largest index with at most that many bits is at most two
+     * more than the answer
+     * @param value The value, which should be positive
+     * @return Returns the largest index k >= 2 where F(k) <= value
+     */
+    private static int getLargestIndex(long value)
+    {
+        int index = LARGEST_INDICES[Long.SIZE - Long.numberOfLeadingZeros(value)];
+        index -= (int) ((value - WEIGHTS[index]) >>> 63);
+        index -= (int) ((value - WEIGHTS[index]) >>> 63);
+        return index;
+    } // End of the getLargestIndex method
+
+    /**
+     * [Helper Method] Fills in the decoding tables for one (previous bit, byte) pair
+     * @param state The pair, as (previous bit << 8) | byte
+     */
+    private static void buildState(int state)
+    {
+        int previous = state >>> Byte.SIZE;
+        int events = 0;
+        int a = 0;
+        int b = 0;
+        int position = 0; // The position of the bit in the current code, relative to the start of the byte if the
+                          // code started before it
+
+        for (int bit = 0; bit < Byte.SIZE; ++bit)
+        {
+            int current = (state >>> bit) & 1;
+            if ((current == 1) && (previous == 1))
+            {
+                if (events == 0)
+                    FIRST_TERMINATORS[state] = bit;
+                EVENT_A[(state * MAX_EVENTS) + events] = a;
+                EVENT_B[(state * MAX_EVENTS) + events] = b;
+                ++events;
+                a = 0;
+                b = 0;
+                position = 0;
+                previous = 0; // The terminating bit cannot also start the next code's terminator
+            }
+            else
+            {
+                if (current == 1)
+                {
+                    a += (int) WEIGHTS[position + 1];
+                    b += (int) WEIGHTS[position];
+                }
+                ++position;
+                previous = current;
+            }
+        }
+
+        EVENT_COUNTS[state] = events;
+        TAIL_A[state] = a;
+        TAIL_B[state] = b;
+        TAIL_LENGTHS[state] = position;
+        TAIL_PREVIOUS[state] = previous;
+    } // End of the buildState method
+
+    /************************* END OF HELPER METHODS *************************/
+
+    /**
+     * Decodes a stream of fibonacci codes in as many pieces as needed, remembering the code it stopped partway through
+     * and any codes left over from the last byte it read, so that no code is lost between calls
+     */
+    static final class Decoder
+    {
+        private long value; // The sum of the current code's bits so far
+        private int position; // The position in the current code of the next bit
+        private int previous; // The previous bit, unless it ended a code
+        private final long[] leftovers = new long[MAX_EVENTS - 1]; // Codes that ended in the last byte but were not
+                                                                    // asked for yet
+        private int leftoverStart;
+        private int leftoverEnd;
+
+        /**
+         * Decodes fibonacci codes packed least significant bit first from the buffer's position, carrying on from
+         * where the previous call stopped
+         * @param in The buffer to read the codes from, whose position is moved past the last byte read
+         * @param values The array to write the decoded values into
+         * @param offset The position in the array of the first value
+         * @param length The largest number of values to decode
+         * @return Returns the number of values decoded, which is less than `length` only when the buffer ran out
+         * @throws IllegalArgumentException When the buffer holds an invalid code
+         */
+        int decode(ByteBuffer in, long[] values, int offset, int length)
+        {
+            int decoded = 0;
+            for (; (leftoverStart < leftoverEnd) && (decoded < length); ++leftoverStart)
+                values[offset + decoded++] = leftovers[leftoverStart];
+
+            int i = in.position();
+            for (int end = in.limit(); (i < end) && (decoded < length); ++i)
+            {
+                int state = (previous << Byte.SIZE) | (in.get(i) & 0xFF);
+                int events = EVENT_COUNTS[state];
+                if (events != 0)
+                {
+                    if (position + FIRST_TERMINATORS[state] > MAX_CODE_BITS - 1)
+                        throw new IllegalArgumentException("Error: fibonacci code " + decoded +
+                                " does not fit in a long");
+
+                    int event = state * MAX_EVENTS;
+                    value += (WEIGHTS[position + 2] * EVENT_A[event]) + (WEIGHTS[position + 1] * EVENT_B[event]);
+                    if (value < 0L)
+                        throw new IllegalArgumentException("Error: fibonacci code " + decoded +
+                                " does not fit in a long");
+                    values[offset + decoded++] = value;
+
+                    // Later codes in the byte start at position 0, where F(2) = F(1) = 1. Those past `length` are kept
+                    // for the next call
+                    leftoverStart = 0;
+                    leftoverEnd = 0;
+                    for (int e = 1; e < events; ++e)
+                    {
+                        long code = EVENT_A[event + e] + EVENT_B[event + e];
+                        if (decoded < length)
+                            values[offset + decoded++] = code;
+                        else
+                            leftovers[leftoverEnd++] = code;
+                    }
+                    value = 0L;
+                    position = 0;
+                }
+
+                if (position + TAIL_LENGTHS[state] > MAX_CODE_BITS - 1)
+                    throw new IllegalArgumentException("Error: fibonacci code " + decoded + " does not fit in a long");
+                value += (WEIGHTS[position + 2] * TAIL_A[state]) + (WEIGHTS[position + 1] * TAIL_B[state]);
+                position += TAIL_LENGTHS[state];
+                previous = TAIL_PREVIOUS[state];
+            }
+
+            in.position(i);
+            return decoded;
+        } // End of the decode method
+
+        /**
+         * Checks whether every code read so far has been handed out, and no bits of a further code have been read.
+         * Padding 0 bits cannot be told apart from the start of a code, so they count as a boundary
+         * @return Returns true if the decoder holds no leftover codes and no 1 bits of an unfinished code
+         */
+        boolean isAtCodeBoundary()
+        {
+            return (leftoverStart == leftoverEnd) && (value == 0L);
+        } // End of the isAtCodeBoundary method
+    } // End of the Decoder class
+} // End of the FibonacciCodec class
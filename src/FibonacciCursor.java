@@ -0,0 +1,399 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A position k in the fibonacci sequence, holding the pair (F(k), F(k + 1)), that can be moved forwards or backwards
+ * cheaply:
+ *      - next() and prev() cost a single addition or subtraction
+ *      - seek(n) steps, jumps with the addition identities, or doubles, whichever is cheapest for the distance
+ *      - split() hands out evenly spaced cursors over a range, e.g. one per parallel worker
+ *
+ * By default each step creates new BigIntegers. A cursor can instead reuse its own pair of int[] magnitudes, adding
+ * and subtracting them in place, so that stepping allocates nothing (other than the occasional growth of an array). In
+ * that mode a BigInteger is only created when get() or getNext() is called, e.g.
+ *      for (FibonacciCursor cursor = new FibonacciCursor(n, true); cursor.bitLength() < limit; cursor.next()) ...
+ */
+public final class FibonacciCursor
+{
+    private final boolean isReusingMagnitudes;
+    private long index;
+
+    // F(index) and F(index + 1). When reusing magnitudes, these are only caches of the words below, and may be null
+    private BigInteger value;
+    private BigInteger nextValue;
+
+    // F(index) and F(index + 1) as little-endian 32 bit words, only used when reusing magnitudes
+    private int[] words;
+    private int wordCount;
+    private int[] nextWords;
+    private int nextWordCount;
+
+    /**
+     * Creates a cursor at F(0)
+     */
+    public FibonacciCursor()
+    {
+        this(0L, false);
+    } // End of the FibonacciCursor constructor
+
+    /**
+     * Creates a cursor at F(n)
+     * @param index The index `n` to start at, which should not be negative
+     */
+    public FibonacciCursor(long index)
+    {
+        this(index, false);
+    } // End of the FibonacciCursor constructor
+
+    /**
+     * Creates a cursor at F(n), optionally stepping in place without allocating
+     * @param index The index `n` to start at, which should not be negative
+     * @param isReusingMagnitudes Whether next() and prev() should add and subtract in place into reused arrays
+     */
+    public FibonacciCursor(long index, boolean isReusingMagnitudes)
+    {
+        if (index < 0L)
+            throw new IllegalArgumentException("Error: input number should not be negative");
+        this.isReusingMagnitudes = isReusingMagnitudes;
+        this.index = -1L; // Forces seek() to calculate the pair, rather than stepping from a pair that is not there
+        seek(index);
+    } // End of the FibonacciCursor constructor
+
+    /**
+     * Creates a cursor at an already known pair
+     * @param index The index `k` of the pair
+     * @param values An array of {F(k), F(k + 1)}
+     * @param isReusingMagnitudes Whether next() and prev() should add and subtract in place into reused arrays
+     */
+    private FibonacciCursor(long index, BigInteger[] values, boolean isReusingMagnitudes)
+    {
+        this.isReusingMagnitudes = isReusingMagnitudes;
+        setPair(index, values);
+    } // End of the FibonacciCursor constructor
+
+    public long getIndex() {return index;}
+
+    public boolean isReusingMagnitudes() {return isReusingMagnitudes;}
+
+    /**
+     * Gets the fibonacci number at the cursor
+     * @return Returns F(k), where `k` is the cursor's index
+     */
+    public BigInteger get()
+    {
+        if (value == null)
+            value = toBigInteger(words, wordCount);
+        return value;
+    } // End of the get method
+
+    /**
+     * Gets the fibonacci number after the cursor, without moving it
+     * @return Returns F(k + 1), where `k` is the cursor's index
+     */
+    public BigInteger getNext()
+    {
+        if (nextValue == null)
+            nextValue = toBigInteger(nextWords, nextWordCount);
+        return nextValue;
+    } // End of the getNext method
+
+    /**
+     * Gets the number of bits in the fibonacci number at the cursor, without creating a BigInteger
+     * @return Returns the bit length of F(k), where `k` is the cursor's index
+     */
+    public int bitLength()
+    {
+        if (!isReusingMagnitudes)
+            return value.bitLength();
+        return (wordCount == 0) ? 0 : (32 * wordCount) - Integer.numberOfLeadingZeros(words[wordCount - 1]);
+    } // End of the bitLength method
+
+    /**
+     * Moves the cursor forwards by one, with a single addition. The new value is read with get(), so that a cursor
+     * that reuses its magnitudes can take many steps without creating any BigIntegers
+     * @return Returns this cursor
+     * @throws NoSuchElementException When the cursor is already at index Long.MAX_VALUE
+     */
+    public FibonacciCursor next()
+    {
+        if (index == Long.MAX_VALUE)
+            throw new NoSuchElementException("Error: the cursor cannot move past index " + Long.MAX_VALUE);
+        stepForwards();
+        return this;
+    } // End of the next method
+
+    /**
+     * Moves the cursor backwards by one, with a single subtraction. The new value is read with get()
+     * @return Returns this cursor
+     * @throws NoSuchElementException When the cursor is already at F(0)
+     */
+    public FibonacciCursor prev()
+    {
+        if (index == 0L)
+            throw new NoSuchElementException("Error: the cursor cannot move before index 0");
+        stepBackwards();
+        return this;
+    } // End of the prev method
+
+    /**
+     * Moves the cursor to F(n). Short distances are stepped, small indices are looked up in FibonacciTable, forward
+     * jumps of at most FibonacciFinder.JUMP_GAP_LIMIT use the addition identities, and anything else is found with fast
+     * doubling
+     * @param target The index `n` to move to, which should not be negative
+     * @return Returns this cursor
+     */
+    public FibonacciCursor seek(long target)
+    {
+        if (target < 0L)
+            throw new IllegalArgumentException("Error: input number should not be negative");
+
+        long gap = target - index;
+        if ((index >= 0L) && (gap >= 0L) && (gap <= FibonacciFinder.LINEAR_STEP_LIMIT))
+            while (index < target)
+                stepForwards();
+        else if ((index >= 0L) && (gap < 0L) && (-gap <= FibonacciFinder.LINEAR_STEP_LIMIT))
+            while (index > target)
+                stepBackwards();
+        else if (target < FibonacciTable.MAX_128_BIT_INDEX)
+            setPair(target, new BigInteger[] {FibonacciTable.getBigInteger((int) target),
+                    FibonacciTable.getBigInteger((int) target + 1)});
+        else if ((index >= 0L) && (gap > 0L) && (gap <= FibonacciFinder.JUMP_GAP_LIMIT))
+            setPair(target, FibonacciFinder.findSummedFibonacciPair(getPair(),
+                    FibonacciFinder.findFibonacciPairFastDoubling(BigInteger.valueOf(gap))));
+        else
+            setPair(target, FibonacciFinder.findFibonacciPairFastDoubling(BigInteger.valueOf(target)));
+        return this;
+    } // End of the seek method
+
+    /**
+     * Creates an independent copy of this cursor, at the same index
+     * @return Returns the copy
+     */
+    public FibonacciCursor copy()
+    {
+        return new FibonacciCursor(index, getPair(), isReusingMagnitudes);
+    } // End of the copy method
+
+    /**
+     * Splits the range of `length` indices starting at this cursor into `parts` contiguous pieces that differ in
+     * length by at most one, and creates a cursor at the start of each piece. When the pieces are at most
+     * FibonacciFinder.JUMP_GAP_LIMIT long, every cursor after the first is found from the one before it with the
+     * addition identities. Longer pieces are each doubled to directly, which is then cheaper. This cursor does not move
+     * @param length The number of indices in the range, starting from (and including) this cursor's index
+     * @param parts The number of pieces to split the range into
+     * @return Returns a cursor at the start of each piece, in order, where piece `i` ends just before cursor `i + 1`
+     * (and the last piece ends just before this cursor's index + length)
+     */
+    public FibonacciCursor[] split(long length, int parts)
+    {
+        if ((length < 0L) || (parts < 1))
+            throw new IllegalArgumentException("Error: split should have a non-negative length and at least one part");
+        if (index > Long.MAX_VALUE - length)
+            throw new IllegalArgumentException("Error: split should not go past index " + Long.MAX_VALUE);
+
+        long pieceLength = length / parts;
+        long longerPieces = length % parts; // The first `longerPieces` pieces are one index longer than the rest
+        if (pieceLength >= FibonacciFinder.JUMP_GAP_LIMIT)
+        {
+            FibonacciCursor[] cursors = new FibonacciCursor[parts];
+            cursors[0] = copy();
+            long position = index;
+            for (int i = 1; i < parts; ++i)
+            {
+                position += (i - 1 < longerPieces) ? pieceLength + 1L : pieceLength;
+                cursors[i] = new FibonacciCursor(position, isReusingMagnitudes);
+            }
+            return cursors;
+        }
+
+        BigInteger[] pieceValues = FibonacciFinder.findFibonacciPairFastDoubling(BigInteger.valueOf(pieceLength));
+        BigInteger[] longerPieceValues = FibonacciFinder.findSteppedFibonacciPair(pieceValues, 1L);
+
+        FibonacciCursor[] cursors = new FibonacciCursor[parts];
+        cursors[0] = copy();
+        long position = index;
+        BigInteger[] values = getPair();
+        for (int i = 1; i < parts; ++i)
+        {
+            boolean isLonger = (i - 1 < longerPieces);
+            position += isLonger ? pieceLength + 1L : pieceLength;
+            values = FibonacciFinder.findSummedFibonacciPair(values, isLonger ? longerPieceValues : pieceValues);
+            cursors[i] = new FibonacciCursor(position, values, isReusingMagnitudes);
+        }
+        return cursors;
+    } // End of the split method
+
+    @Override
+    public String toString()
+    {
+        return "F(" + index + ")";
+    } // End of the toString method
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Gets the cursor's pair
+     * @return Returns an array of {F(k), F(k + 1)}, where `k` is the cursor's index
+     */
+    private BigInteger[] getPair()
+    {
+        return new BigInteger[] {get(), getNext()};
+    } // End of the getPair method
+
+    /**
+     * [Helper Method] Moves the cursor to an already known pair
+     * @param newIndex The index `k` of the pair
+     * @param values An array of {F(k), F(k + 1)}
+     */
+    private void setPair(long newIndex, BigInteger[] values)
+    {
+        index = newIndex;
+        value = values[0];
+        nextValue = values[1];
+        if (isReusingMagnitudes)
+        {
+            words = toWords(values[0], words);
+            wordCount = getWordCount(values[0]);
+            nextWords = toWords(values[1], nextWords);
+            nextWordCount = getWordCount(values[1]);
+        }
+    } // End of the setPair method
+
+    /**
+     * [Helper Method] Moves (F(k), F(k + 1)) to (F(k + 1), F(k) + F(k + 1)). When reusing magnitudes, the sum is
+     * written over F(k)'s words, and the two arrays swap roles
+     */
+    private void stepForwards()
+    {
+        ++index;
+        if (!isReusingMagnitudes)
+        {
+            BigInteger sum = value.add(nextValue);
+            value = nextValue;
+            nextValue = sum;
+            return;
+        }
+
+        if (words.length <= nextWordCount)
+            words = Arrays.copyOf(words, Math.max(2 * words.length, nextWordCount + 1));
+        long carry = 0L;
+        for (int i = 0; i < nextWordCount; ++i)
+        {
+            long sum = (words[i] & 0xFFFFFFFFL) + (nextWords[i] & 0xFFFFFFFFL) + carry;
+            words[i] = (int) sum;
+            carry = sum >>> 32;
+        }
+        int sumWordCount = nextWordCount;
+        if (carry != 0L)
+            words[sumWordCount++] = (int) carry;
+
+        swapWords(sumWordCount);
+        value = nextValue;
+        nextValue = null;
+    } // End of the stepForwards method
+
+    /**
+     * [Helper Method] Moves (F(k), F(k + 1)) to (F(k + 1) - F(k), F(k)). When reusing magnitudes, the difference is
+     * written over F(k + 1)'s words, and the two arrays swap roles
+     */
+    private void stepBackwards()
+    {
+        --index;
+        if (!isReusingMagnitudes)
+        {
+            BigInteger difference = nextValue.subtract(value);
+            nextValue = value;
+            value = difference;
+            return;
+        }
+
+        long borrow = 0L;
+        for (int i = 0; i < nextWordCount; ++i)
+        {
+            long difference = (nextWords[i] & 0xFFFFFFFFL) - ((i < wordCount) ? (words[i] & 0xFFFFFFFFL) : 0L) - borrow;
+            nextWords[i] = (int) difference;
+            borrow = (difference < 0L) ? 1L : 0L;
+        }
+        int differenceWordCount = nextWordCount;
+        while ((differenceWordCount > 0) && (nextWords[differenceWordCount - 1] == 0))
+            --differenceWordCount;
+
+        // The difference becomes F(k), and the old F(k) becomes F(k + 1)
+        int[] oldWords = words;
+        int oldWordCount = wordCount;
+        words = nextWords;
+        wordCount = differenceWordCount;
+        nextWords = oldWords;
+        nextWordCount = oldWordCount;
+        nextValue = value;
+        value = null;
+    } // End of the stepBackwards method
+
+    /**
+     * [Helper Method] Swaps the two word arrays after a step forwards, so that the old F(k + 1) becomes F(k) and the
+     * sum that was written over F(k) becomes F(k + 1)
+     * @param sumWordCount The number of words in the sum
+     */
+    private void swapWords(int sumWordCount)
+    {
+        int[] sumWords = words;
+        words = nextWords;
+        wordCount = nextWordCount;
+        nextWords = sumWords;
+        nextWordCount = sumWordCount;
+    } // End of the swapWords method
+
+    /**
+     * [Helper Method] Gets the number of 32 bit words needed to hold a non-negative value
+     */
+    private static int getWordCount(BigInteger value)
+    {
+        return (value.bitLength() + 31) / 32;
+    } // End of the getWordCount method
+
+    /**
+     * [Helper Method] Converts a non-negative value into little-endian 32 bit words, reusing an array if it is large
+     * enough. One spare word is always left, so that the next addition is less likely to need to grow the array
+     * @param value The value to convert
+     * @param reusableWords An array to reuse, or null
+     * @return Returns the array holding the value's words, with any words past them set to zero
+     */
+    private static int[] toWords(BigInteger value, int[] reusableWords)
+    {
+        int count = getWordCount(value);
+        int[] result = ((reusableWords != null) && (reusableWords.length > count)) ? reusableWords : new int[count + 1];
+        Arrays.fill(result, 0);
+
+        byte[] bytes = value.toByteArray(); // Big-endian, possibly with a leading zero byte for the sign
+        for (int i = 0; i < bytes.length; ++i)
+        {
+            int bytePosition = bytes.length - 1 - i; // Counting from the least significant byte
+            if (bytePosition / 4 < count)
+                result[bytePosition / 4] |= (bytes[i] & 0xFF) << (8 * (bytePosition % 4));
+        }
+        return result;
+    } // End of the toWords method
+
+    /**
+     * [Helper Method] Converts little-endian 32 bit words back into a non-negative BigInteger
+     * @param source The words to convert
+     * @param count The number of words in use
+     * @return Returns the value the words hold
+     */
+    private static BigInteger toBigInteger(int[] source, int count)
+    {
+        byte[] bytes = new byte[4 * count];
+        for (int i = 0; i < count; ++i)
+        {
+            int word = source[count - 1 - i];
+            bytes[4 * i] = (byte) (word >>> 24);
+            bytes[(4 * i) + 1] = (byte) (word >>> 16);
+            bytes[(4 * i) + 2] = (byte) (word >>> 8);
+            bytes[(4 * i) + 3] = (byte) word;
+        }
+        return new BigInteger(1, bytes);
+    } // End of the toBigInteger method
+
+    /************************* END OF HELPER METHODS *************************/
+} // End of the FibonacciCursor class
@@ -1,11 +1,24 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.stream.Stream;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.LongStream;
 
 /**
  * A program to naively identify the nth Fibonacci number, with the option for finding it via iterative approaches, or
@@ -14,8 +27,37 @@ import java.util.stream.Stream;
 public class FibonacciFinder
 {
     // Global flags
+    private static final String USAGE = "`naive recursive|iterative|direct n` OR " +
+            "`dynamic recursive|iterative|direct|parallel n` OR `fast n` OR `all n` OR " +
+            "`all n file_path_to_test_numbers` OR `benchmark [n...]` OR `benchmark parallel [n]` OR " +
+            "`benchmark codec [count]` OR `batch [file_path_to_indices]` OR `range a b` OR `mod n m` OR " +
+            "`serve [port]` OR `verify file_path_to_test_numbers [a b]` OR `index-of x` OR `is-fib x` OR " +
+            "`index-of batch [file_path_to_values]`, where n, a and b are non-negative integer values, m is a " +
+            "positive integer value and x is an integer value";
     private static boolean isTestable = false;
-    private static String MAX_TEST_FILE_INDEX = "1001"; // Replace with the maximum value in your test file
+
+    // Shared cache of fibonacci checkpoints, sized by the `fibonacci.cache.bytes` system property, and persisted to the
+    // file given by the `fibonacci.checkpoints` system property (if any)
+    static final FibonacciCache CACHE = createCache();
+
+    // Size of the buffer used when writing out large amounts of results
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    // Gaps of at most this many indices are cheaper to step over with additions than to jump over with multiplications
+    static final long LINEAR_STEP_LIMIT = 8L;
+    // Gaps of at most this many indices are cheaper to jump over with the addition identities than to double over.
+    // F(gap) then stays below BigInteger's Karatsuba threshold (80 ints), so the jump's multiplications take time
+    // linear in the larger value, while past it the lopsided multiplications cost as much as doubling from F(0)
+    static final long JUMP_GAP_LIMIT = 3072L;
+
+    // Direct generator constants
+    private static final double LOG2_PHI = Math.log((1d + Math.sqrt(5d)) / 2d) / Math.log(2d);
+    private static final int DIRECT_GUARD_BITS = 32;
+    private static final int NEWTON_GUARD_BITS = 16;
+
+    // The largest index whose fibonacci number fits in a BigInteger, which holds at most Integer.MAX_VALUE bits. F(n)
+    // has about n * log2(phi) bits, so any larger index would run out of memory (or overflow) instead of finishing
+    static final long MAX_INDEX = (long) (Integer.MAX_VALUE / LOG2_PHI);
 
     /**
      * The main driver class showing the high-level path of the program, validating inputs and calling the correct
@@ -38,19 +80,177 @@ public class FibonacciFinder
 
     /**
      * Validates the commandline inputs for sane inputs
-     * @param args Of the form `all n` OR `naive|dynamic recursive|iterative|direct n`, where n is a non-negative integer
+     * @param args Of the form described by USAGE
      * @return Returns the position of where in the args array the `n` value is
      * @throws InvalidInputException When the commandline arguments are not valid
      */
     private static int validateInput(String[] args) throws InvalidInputException
     {
+        if (!FibonacciOutput.isValidFormat(FibonacciOutput.FORMAT))
+            throw new InvalidInputException("Error: the fibonacci.output property should be `decimal`, `hex` or `raw`");
+        if ((args.length >= 1) && (!FibonacciOutput.FORMAT.equals("decimal")))
+        {
+            // Only the modes that print fibonacci numbers have an output format, and raw bytes only suit a single value
+            boolean isSingleValue = args[0].equals("naive") || args[0].equals("dynamic") || args[0].equals("fast");
+            boolean isLineBased = args[0].equals("batch") || args[0].equals("range") || args[0].equals("mod");
+            if ((!isSingleValue) && (!isLineBased))
+                throw new InvalidInputException("Error: the fibonacci.output property is only supported by the " +
+                        "`naive`, `dynamic`, `fast`, `batch`, `range` and `mod` modes");
+            if (isLineBased && (FibonacciOutput.FORMAT.equals("raw")))
+                throw new InvalidInputException("Error: raw output is only supported for single values, use `hex` " +
+                        "instead");
+        }
+
+        if ((args.length >= 1) && (args[0].equals("benchmark")))
+        {
+            if ((args.length >= 2) && (args[1].equals("codec")))
+            {
+                if (args.length > 3)
+                    throw new InvalidInputException("Error: invalid command syntax, syntax is of form: " +
+                            "`benchmark codec [count]`");
+                try
+                {
+                    if ((args.length == 3) && (Integer.parseInt(args[2]) <= 0))
+                        throw new InvalidInputException("Error: value count should be positive");
+                }
+                catch (NumberFormatException e)
+                {throw new InvalidInputException("Error: value count should be an integer");}
+                return 2;
+            }
+
+            int firstIndex = 1;
+            if ((args.length >= 2) && (args[1].equals("parallel")))
+            {
+                if (args.length > 3)
+                    throw new InvalidInputException("Error: invalid command syntax, syntax is of form: " +
+                            "`benchmark parallel [n]`");
+                firstIndex = 2;
+            }
+
+            for (int i = firstIndex; i < args.length; ++i)
+            {
+                validateIndex(args[i]);
+                // Every generator is benchmarked, and the dynamic direct generator takes at most an int
+                if (new BigInteger(args[i]).bitLength() >= ((firstIndex == 2) ? Long.SIZE : Integer.SIZE))
+                    throw new InvalidInputException("Error: input number should be at most " +
+                            ((firstIndex == 2) ? Long.MAX_VALUE : Integer.MAX_VALUE) + " for this mode");
+            }
+            return firstIndex;
+        }
+
+        if ((args.length >= 1) && (args[0].equals("batch")))
+        {
+            if (args.length > 2)
+                throw new InvalidInputException("Error: invalid command syntax, syntax is of form: " +
+                        "`batch [file_path_to_indices]`");
+            if ((args.length == 2) && (!new File(args[1]).isFile()))
+                throw new InvalidInputException("Error: Batch file_path given is not a valid file," +
+                        " or does not have read permissions");
+            return 1;
+        }
+
+        if ((args.length >= 1) && (args[0].equals("range")))
+        {
+            if (args.length != 3)
+                throw new InvalidInputException("Error: invalid command syntax, syntax is of form: `range a b`");
+            try
+            {
+                long from = Long.parseLong(args[1]);
+                long to = Long.parseLong(args[2]);
+                if ((from < 0L) || (to < from))
+                    throw new InvalidInputException("Error: range should satisfy 0 <= a <= b");
+                if (to > MAX_INDEX)
+                    throw new InvalidInputException("Error: input number should be at most " + MAX_INDEX);
+            }
+            catch (NumberFormatException e)
+            {throw new InvalidInputException("Error: range bounds should be integers");}
+            return 1;
+        }
+
+        if ((args.length >= 1) && (args[0].equals("mod")))
+        {
+            if (args.length != 3)
+                throw new InvalidInputException("Error: invalid command syntax, syntax is of form: `mod n m`");
+            validateIndex(args[1]);
+            try
+            {
+                if (Long.parseLong(args[2]) <= 0L)
+                    throw new InvalidInputException("Error: modulus should be positive");
+            }
+            catch (NumberFormatException e)
+            {throw new InvalidInputException("Error: modulus should be an integer that fits in a long");}
+            return 1;
+        }
+
+        if ((args.length >= 1) && (args[0].equals("verify")))
+        {
+            if ((args.length != 2) && (args.length != 4))
+                throw new InvalidInputException("Error: invalid command syntax, syntax is of form: " +
+                        "`verify file_path_to_test_numbers [a b]`");
+            if (!new File(args[1]).isFile())
+                throw new InvalidInputException("Error: Test file_path given is not a valid test file," +
+                        " or does not have read permissions");
+            if (args.length == 4)
+            {
+                try
+                {
+                    long from = Long.parseLong(args[2]);
+                    long to = Long.parseLong(args[3]);
+                    if ((from < 0L) || (to < from))
+                        throw new InvalidInputException("Error: range should satisfy 0 <= a <= b");
+                }
+                catch (NumberFormatException e)
+                {throw new InvalidInputException("Error: range bounds should be integers");}
+            }
+            return 1;
+        }
+
+        if ((args.length >= 1) && (args[0].equals("serve")))
+        {
+            if (args.length > 2)
+                throw new InvalidInputException("Error: invalid command syntax, syntax is of form: `serve [port]`");
+            try
+            {
+                if ((args.length == 2) && ((Integer.parseInt(args[1]) < 0) || (Integer.parseInt(args[1]) > 65535)))
+                    throw new InvalidInputException("Error: port should be between 0 and 65535");
+            }
+            catch (NumberFormatException e)
+            {throw new InvalidInputException("Error: port should be an integer");}
+            return 1;
+        }
+
+        if ((args.length >= 1) && (args[0].equals("index-of") || args[0].equals("is-fib")))
+        {
+            if ((args[0].equals("index-of")) && (args.length >= 2) && (args[1].equals("batch")))
+            {
+                if (args.length > 3)
+                    throw new InvalidInputException("Error: invalid command syntax, syntax is of form: " +
+                            "`index-of batch [file_path_to_values]`");
+                if ((args.length == 3) && (!new File(args[2]).isFile()))
+                    throw new InvalidInputException("Error: Batch file_path given is not a valid file," +
+                            " or does not have read permissions");
+                return 2;
+            }
+
+            if (args.length != 2)
+                throw new InvalidInputException("Error: invalid command syntax, syntax is of form: `" + args[0] +
+                        " x`");
+            if (!isInteger(args[1]))
+                throw new InvalidInputException("Error: input number should be an integer");
+            return 1;
+        }
+
         if ((args.length != 3) && (args.length != 2))
-            throw new InvalidInputException("Error: invalid command syntax, syntax is of form: " +
-                    "`naive|dynamic recursive|iterative|direct n` OR `all n` OR `all n file_path_to_test_numbers`," +
-                    " where n is a non-negative integer value");
+            throw new InvalidInputException("Error: invalid command syntax, syntax is of form: " + USAGE);
+
+        if ((!args[0].equals("naive")) && (!args[0].equals("dynamic")) && (!args[0].equals("fast")) &&
+                (!args[0].equals("all")))
+            throw new InvalidInputException(
+                    "Error: input mode should be either `naive` or `dynamic` or `fast` or `all` or `benchmark` or " +
+                    "`batch` or `range` or `mod` or `serve` or `verify` or `index-of` or `is-fib`");
 
-        if ((!args[0].equals("naive")) && (!args[0].equals("dynamic")) && (!args[0].equals("all")))
-            throw new InvalidInputException("Error: input mode should be either `naive` or `dynamic` or `all`");
+        if ((args[0].equals("fast")) && (args.length != 2))
+            throw new InvalidInputException("Error: invalid command syntax, syntax is of form: `fast n`");
 
         try
         {
@@ -68,80 +268,195 @@ public class FibonacciFinder
             if ((args[0].equals("naive")) || (args[0].equals("dynamic")))
                 nIndex = 2;
 
-            BigInteger index = new BigInteger(args[nIndex]);
-            if (index.compareTo(BigInteger.ZERO) == -1)
-                throw new InvalidInputException("Error: input number should not be negative");
+            validateIndex(args[nIndex]);
+
+            // The naive generators (which `all` runs too) and the dynamic iterative generator count in a long
+            if ((args[0].equals("naive") || args[0].equals("all") ||
+                    (args[0].equals("dynamic") && args[1].equals("iterative"))) &&
+                    (new BigInteger(args[nIndex]).bitLength() >= Long.SIZE))
+                throw new InvalidInputException("Error: input number should be at most " + Long.MAX_VALUE +
+                        " for this mode");
+
+            // The dynamic direct generator (which `all` runs too) raises phi to the `n`th power with an int exponent
+            if ((args[0].equals("all") || (args[0].equals("dynamic") && args[1].equals("direct"))) &&
+                    (new BigInteger(args[nIndex]).bitLength() >= Integer.SIZE))
+                throw new InvalidInputException("Error: input number should be at most " + Integer.MAX_VALUE +
+                        " for this mode");
+
+            if (new BigInteger(args[nIndex]).compareTo(BigInteger.valueOf(MAX_INDEX)) > 0)
+                throw new InvalidInputException("Error: input number should be at most " + MAX_INDEX);
             return nIndex;
         }
         catch (NumberFormatException e)
         {throw new InvalidInputException("Error: input number should be an integer");}
     } // End of the validate input method
 
+    /**
+     * Validates that a single commandline argument is a non-negative integer
+     * @param argument The commandline argument holding the `n` value
+     * @throws InvalidInputException When the argument is not a non-negative integer
+     */
+    private static void validateIndex(String argument) throws InvalidInputException
+    {
+        try
+        {
+            BigInteger index = new BigInteger(argument);
+            if (index.compareTo(BigInteger.ZERO) == -1)
+                throw new InvalidInputException("Error: input number should not be negative");
+        }
+        catch (NumberFormatException e)
+        {throw new InvalidInputException("Error: input number should be an integer");}
+    } // End of the validate index method
+
     /**
      * The driver to run the correct version of the generate fibonacci number
-     * @param args Of the form `all n` OR `naive|dynamic recursive|iterative|direct n`, where n is a non-negative integer
+     * @param args Of the form described by USAGE
      * @param nIndex The position of where in the args array the `n` value is
      * @throws InvalidInputException When the commandline arguments are not valid
      */
     private static void findFibonacciDriver(String[] args, int nIndex) throws InvalidInputException
     {
-        long naiveIndex = Long.parseLong(args[nIndex]);
         long naiveValue; // The nth fibonacci number calculated (naively)
 
-        BigInteger index = new BigInteger(args[nIndex]);
+        BigInteger index; // The index of the fibonacci number to calculate
         BigInteger value; // The nth fibonacci number calculated (dynamically)
 
         switch(args[0])
         {
             case "naive":
             {
-                System.out.printf("The %d%s fibonacci number is: ", index, getIndexSuffix(index));
-                switch(args[1])
-                {
-                    case "iterative":
-                        naiveValue = findFibonacciNumberNaiveIterative(naiveIndex);
-                        break;
-                    case "recursive":
-                        naiveValue = findFibonacciNumberNaiveRecursiveDriver(naiveIndex);
-                        break;
-                    case "direct":
-                        naiveValue = findFibonacciNumberNaiveDirect(naiveIndex);
-                        break;
-                    default:
-                        // Will not occur due to check from validateInput(), but kept to keep compiler happy
-                        throw new InvalidInputException("Error: input mode should be either `iterative` or `recursive`");
-                }
-                System.out.println(naiveValue);
+                long naiveIndex = Long.parseLong(args[nIndex]);
+                index = new BigInteger(args[nIndex]);
+                FibonacciGenerator generator = findGenerator(args[0], args[1]);
+                naiveValue = generator.generate(BigInteger.valueOf(naiveIndex)).longValue();
+                printFibonacciNumber(index, BigInteger.valueOf(naiveValue));
+                break;
             } // End of the naive case
             case "dynamic":
             {
-                System.out.printf("The %d%s fibonacci number is: ", index, getIndexSuffix(index));
-                switch(args[1])
-                {
-                    case "iterative":
-                        value = findFibonacciNumberDynamicIterative(index);
-                        break;
-                    case "recursive":
-                        value = findFibonacciNumberDynamicRecursiveDriver(index);
-                        break;
-                    case "direct":
-                        value = findFibonacciNumberDynamicDirect(index);
-                        break;
-                    default:
-                        // Will not occur due to check from validateInput(), but kept to keep compiler happy
-                        throw new InvalidInputException("Error: input mode should be either `iterative` or `recursive`");
-                }
-                System.out.println(value);
+                index = new BigInteger(args[nIndex]);
+                FibonacciGenerator generator = findGenerator(args[0], args[1]);
+                value = generator.generate(index);
+                printFibonacciNumber(index, value);
+                break;
             } // End of the dynamic case
+            case "fast":
+            {
+                index = new BigInteger(args[nIndex]);
+                value = FibonacciGenerator.FAST_TIERED.generate(index);
+                printFibonacciNumber(index, value);
+                break;
+            } // End of the fast case
             case "all":
             {
                 String filePath = "";
 
                 if (args.length == 3)
                     filePath = args[2];
-                benchmarkAllGeneratorsDriver(filePath, index);
+                benchmarkAllGeneratorsDriver(filePath, new BigInteger(args[nIndex]));
+                break;
+            } // End of the all case
+            case "benchmark":
+            {
+                if ((nIndex == 2) && (args[1].equals("codec")))
+                {
+                    int count = FibonacciBenchmark.DEFAULT_CODEC_VALUES;
+                    if (args.length == 3)
+                        count = Integer.parseInt(args[2]);
+                    FibonacciBenchmark.benchmarkCodecDriver(count);
+                    break;
+                }
+                if (nIndex == 2)
+                {
+                    long parallelIndex = FibonacciBenchmark.DEFAULT_PARALLEL_INDEX;
+                    if (args.length == 3)
+                        parallelIndex = Long.parseLong(args[2]);
+                    FibonacciBenchmark.benchmarkParallelScalingDriver(parallelIndex);
+                    break;
+                }
+
+                long[] indices = FibonacciBenchmark.DEFAULT_INDICES;
+                if (args.length > 1)
+                {
+                    indices = new long[args.length - 1];
+                    for (int i = 1; i < args.length; ++i)
+                        indices[i - 1] = Long.parseLong(args[i]);
+                }
+                FibonacciBenchmark.benchmarkGeneratorsDriver(indices);
+                break;
+            } // End of the benchmark case
+            case "batch":
+            {
+                String filePath = "";
+
+                if (args.length == 2)
+                    filePath = args[1];
+                findFibonacciBatchDriver(filePath);
+                break;
+            } // End of the batch case
+            case "range":
+            {
+                findFibonacciRangeDriver(new FibonacciRange(Long.parseLong(args[1]), Long.parseLong(args[2])));
+                break;
+            } // End of the range case
+            case "mod":
+            {
+                index = new BigInteger(args[nIndex]);
+                long modulus = Long.parseLong(args[2]);
+                System.out.printf("The %d%s fibonacci number mod %d is: ", index, getIndexSuffix(index), modulus);
+                long residue = FibonacciModular.findFibonacciNumberModular(index, modulus);
+                System.out.println(new String(FibonacciOutput.toBytes(BigInteger.valueOf(residue)),
+                        StandardCharsets.US_ASCII));
+                break;
+            } // End of the mod case
+            case "serve":
+            {
+                int port = FibonacciServer.DEFAULT_PORT;
+                if (args.length == 2)
+                    port = Integer.parseInt(args[1]);
+                try
+                {new FibonacciServer(port).serve();}
+                catch (IOException e)
+                {throw new InvalidInputException("Error: could not start the server: " + e.getMessage());}
+                break;
+            } // End of the serve case
+            case "verify":
+            {
+                try
+                {
+                    FibonacciReferenceFile testFile = new FibonacciReferenceFile(args[1]);
+                    long from = (args.length == 4) ? Long.parseLong(args[2]) : testFile.getFirstIndex();
+                    long to = (args.length == 4) ? Long.parseLong(args[3]) : testFile.getMaxIndex();
+                    new FibonacciVerifier(testFile).verify(from, to);
+                }
+                catch (IOException e)
+                {throw new InvalidInputException(e.getMessage());}
+                break;
+            } // End of the verify case
+            case "index-of":
+            {
+                if (nIndex == 2)
+                {
+                    String filePath = "";
+                    if (args.length == 3)
+                        filePath = args[2];
+                    findFibonacciIndexBatchDriver(filePath);
+                    break;
+                }
+
+                long foundIndex = FibonacciInverse.findIndex(new BigInteger(args[nIndex]));
+                if (foundIndex < 0L)
+                    System.out.println("The given number is not a fibonacci number");
+                else
+                    System.out.printf("The given number is the %d%s fibonacci number\n", foundIndex,
+                            getIndexSuffix(BigInteger.valueOf(foundIndex)));
+                break;
+            } // End of the index-of case
+            case "is-fib":
+            {
+                System.out.println(FibonacciInverse.isFibonacciNumber(new BigInteger(args[nIndex])));
                 break;
-            } // End of the direct case
+            } // End of the is-fib case
             default:
             {
                 // Will not occur due to check from validateInput(), but kept to keep compiler happy
@@ -157,7 +472,7 @@ public class FibonacciFinder
      * @param index The index of the fibonacci sequence we are trying to find
      * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
      */
-    private static long findFibonacciNumberNaiveIterative(long index)
+    static long findFibonacciNumberNaiveIterative(long index)
     {
         if (index == 0L)
             return 0L;
@@ -182,34 +497,38 @@ public class FibonacciFinder
      * @param index The index of the fibonacci sequence we are trying to find
      * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
      */
-    private static long findFibonacciNumberNaiveRecursiveDriver(long index)
+    static long findFibonacciNumberNaiveRecursiveDriver(long index)
     {
         if (index == 0L)
             return 0L;
         else if (index == 1L)
             return 1L;
-        return findFibonacciNumberNaiveRecursive(index, 2L, 0L, 1L);
+        return findFibonacciNumberNaiveRecursive(index)[0];
     } // End of the findFibonacciNumberNaiveRecursiveDriver method
 
     /**
      * The naive approach to generate the `n`th fibonacci number in a recursive fashion.
-     * NOTE: In this implementation, we avoid the issue of the doubling issue due to argument passing
+     * NOTE: Java does not eliminate tail calls, so recursing once per index overflows the stack for large indices.
+     * Instead, each call halves the index and applies the doubling identities to the pair it gets back, so the
+     * recursion is only `O(log n)` frames deep. Overflowing values wrap around exactly as the iterative version does
      * @param index The index of the fibonacci sequence we are trying to find
-     * @param current The current index that is being calculated
-     * @param firstValue The first value (can be thought of as the value 2 indices lower from the current index)
-     * @param secondValue The second value (can be thought of as the value an index lower from the current index)
-     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     * @return Returns an array of {F(n), F(n + 1)}, where `n` is the index number given
      */
-    private static long findFibonacciNumberNaiveRecursive(long index, long current, long firstValue, long secondValue)
+    private static long[] findFibonacciNumberNaiveRecursive(long index)
     {
-        if (index == current)
-            return firstValue + secondValue;
+        if (index == 0L)
+            return new long[] {0L, 1L};
+
+        long[] halfValues = findFibonacciNumberNaiveRecursive(index >>> 1);
+        long firstValue = halfValues[0];
+        long secondValue = halfValues[1];
+        long doubledValue = firstValue * ((secondValue << 1) - firstValue);
+        long doubledNextValue = (firstValue * firstValue) + (secondValue * secondValue);
+
+        if ((index & 1L) == 0L)
+            return new long[] {doubledValue, doubledNextValue};
         else
-        {
-            ++current;
-            long newSecondValue = firstValue + secondValue;
-            return findFibonacciNumberNaiveRecursive(index, current, secondValue, newSecondValue);
-        }
+            return new long[] {doubledNextValue, doubledValue + doubledNextValue};
     } // End of the findFibonacciNumberNaiveRecursive method
 
     /**
@@ -218,7 +537,7 @@ public class FibonacciFinder
      * @param index The index of the fibonacci sequence we are trying to find
      * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
      */
-    private static long findFibonacciNumberNaiveDirect(long index)
+    static long findFibonacciNumberNaiveDirect(long index)
     {
         double phi = (1d + Math.sqrt(5d))/(2d);
         double value = (Math.pow(phi, index) - (Math.pow(-phi, -index)))/(Math.sqrt(5d));
@@ -233,31 +552,30 @@ public class FibonacciFinder
 
     /**
      * An implementation of a dynamic programming approach to solving the fibonacci number generation problem,
-     * utilises BigIntegers in order to go above the limit of (2^63) - 1 given by long. Implemented with memoization
-     * for speed increases lost due to BigInteger's immutability property.
+     * utilises BigIntegers in order to go above the limit of (2^63) - 1 given by long. Only the two most recent values
+     * are ever read, so they are kept in two rolling registers instead of a memoised array, keeping only `O(1)`
+     * values alive at any time.
      * @param index The index of the fibonacci sequence we are trying to find
      * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     * @throws ArithmeticException When the index does not fit in a long
      */
-    private static BigInteger findFibonacciNumberDynamicIterative(BigInteger index)
+    static BigInteger findFibonacciNumberDynamicIterative(BigInteger index)
     {
-        BigInteger[] memoisedArray = new BigInteger[index.intValue() + 1];
-
-        if (index.equals(BigInteger.ZERO))
+        long naiveIndex = index.longValueExact();
+        if (naiveIndex == 0L)
             return BigInteger.ZERO;
-        else if (index.equals(BigInteger.ONE))
+        else if (naiveIndex == 1L)
             return BigInteger.ONE;
 
-        memoisedArray[0] = BigInteger.ZERO;
-        memoisedArray[1] = BigInteger.ONE;
-
-        for (BigInteger i = new BigInteger("2"); (i.compareTo(index) == -1) || (i.compareTo(index) == 0);
-             i = i.add(BigInteger.ONE))
+        BigInteger firstValue = BigInteger.ZERO;
+        BigInteger secondValue = BigInteger.ONE;
+        for (long i = 2L; i <= naiveIndex; ++i)
         {
-            BigInteger currentValue = memoisedArray[i.add(new BigInteger("-1")).intValue()]
-                    .add(memoisedArray[i.add(new BigInteger("-2")).intValue()]);
-            memoisedArray[i.intValue()] = currentValue;
+            BigInteger currentValue = firstValue.add(secondValue);
+            firstValue = secondValue;
+            secondValue = currentValue;
         }
-        return memoisedArray[index.intValue()];
+        return secondValue;
 
     } // End of the findFibonacciNumberDynamicIterative method
 
@@ -268,58 +586,339 @@ public class FibonacciFinder
      * @param index The index of the fibonacci sequence we are trying to find
      * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
      */
-    private static BigInteger findFibonacciNumberDynamicRecursiveDriver(BigInteger index)
+    static BigInteger findFibonacciNumberDynamicRecursiveDriver(BigInteger index)
     {
         if (index.compareTo(BigInteger.ZERO) == 0)
             return BigInteger.ZERO;
         else if (index.compareTo(BigInteger.ONE) == 0)
             return BigInteger.ONE;
 
-        return findFibonacciNumberDynamicRecursive(index, new BigInteger("2"), BigInteger.ZERO, BigInteger.ONE);
+        return findFibonacciNumberDynamicRecursive(index)[0];
 
     } // End of the findFibonacciNumberDynamicRecursiveDriver method
 
     /**
      * The dynamic approach to generate the `n`th fibonacci number in a recursive fashion. This method utilises
      * BigIntegers in order to be able to go higher than the limitations placed on `long`: (2^63) - 1
+     * NOTE: As with the naive version, each call halves the index rather than decrementing it, so the recursion is
+     * only `O(log n)` frames deep and cannot overflow the stack for any index the iterative version supports
      * @param index The index of the fibonacci sequence we are trying to find
-     * @param current The current index that is being calculated
-     * @param firstValue The first value (can be thought of as the value 2 indices lower from the current index)
-     * @param secondValue The second value (can be thought of as the value an index lower from the current index)
-     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     * @return Returns an array of {F(n), F(n + 1)}, where `n` is the index number given
      */
-    private static BigInteger findFibonacciNumberDynamicRecursive(
-            BigInteger index, BigInteger current, BigInteger firstValue, BigInteger secondValue)
+    private static BigInteger[] findFibonacciNumberDynamicRecursive(BigInteger index)
     {
-        BigInteger newSecondValue = firstValue.add(secondValue);
-        if (index.compareTo(current) == 0)
-            return newSecondValue;
-        else
-        {
-            current = current.add(BigInteger.ONE);
-            return findFibonacciNumberDynamicRecursive(index, current, secondValue, newSecondValue);
-        }
+        if (index.signum() == 0)
+            return new BigInteger[] {BigInteger.ZERO, BigInteger.ONE};
+
+        BigInteger[] halfValues = findFibonacciNumberDynamicRecursive(index.shiftRight(1));
+        return findDoubledFibonacciPair(halfValues, index.testBit(0));
     } // End of the findFibonacciNumberDynamicRecursive method
 
     /**
      * The dynamic approach to generate the `n`th fibonacci number in a direct fashion with Binet's Fibonacci
-     * Number Formula
+     * Number Formula. Since |psi^n / sqrt(5)| < 1/2 for every non-negative `n`, F(n) is simply phi^n / sqrt(5) rounded
+     * to the nearest integer, as long as the working precision is large enough.
+     * NOTE: F(n) has roughly n * log2(phi) bits, so that is the number of fractional bits we work with, plus guard bits
+     * to absorb the rounding error that raising phi to the `n`th power multiplies by `n`. All values are kept as
+     * BigIntegers scaled by 2^precision, so each rounding step is a cheap shift rather than a decimal division
      * @param index The index of the fibonacci sequence we are trying to find
      * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     * @throws ArithmeticException When the index does not fit in an int
      */
-    private static BigInteger findFibonacciNumberDynamicDirect(BigInteger index)
+    static BigInteger findFibonacciNumberDynamicDirect(BigInteger index)
     {
-        BigDecimal phi = new BigDecimal(Math.sqrt(5d)).add(BigDecimal.ONE).divide(new BigDecimal("2"), 10, BigDecimal.ROUND_HALF_EVEN);
-        BigDecimal numerator = phi.pow(index.intValue()).subtract(phi.negate().pow(index.negate().intValue(), MathContext.DECIMAL128));
-        BigDecimal value = numerator.divide(new BigDecimal(Math.sqrt(5d)), 100, BigDecimal.ROUND_HALF_EVEN);
+        int naiveIndex = index.intValueExact();
+        int precision = (int) Math.ceil(naiveIndex * LOG2_PHI) + index.bitLength() + DIRECT_GUARD_BITS;
 
-        return value.toBigInteger();
+        BigInteger inverseSqrtFive = findInverseSqrtFive(precision);
+        BigInteger one = BigInteger.ONE.shiftLeft(precision);
+        BigInteger phi = one.add(inverseSqrtFive.multiply(BigInteger.valueOf(5))).shiftRight(1);
+
+        // phi^n by repeated squaring, truncating back to `precision` fractional bits after every multiplication
+        BigInteger power = one;
+        for (int bit = 31 - Integer.numberOfLeadingZeros(naiveIndex); bit >= 0; --bit)
+        {
+            power = power.multiply(power).shiftRight(precision);
+            if (((naiveIndex >>> bit) & 1) == 1)
+                power = power.multiply(phi).shiftRight(precision);
+        }
+
+        BigInteger value = power.multiply(inverseSqrtFive).shiftRight(precision);
+        return value.add(BigInteger.ONE.shiftLeft(precision - 1)).shiftRight(precision);
     } // End of the findFibonacciNumberDynamicDirect method
 
+    /**
+     * Calculates 1/sqrt(5) to the given number of fractional bits with Newton's iteration y = y * (3 - 5y^2) / 2,
+     * which only needs multiplications. Each iteration doubles the number of correct bits, so it is started from a
+     * double precision estimate and the working precision is doubled along with it
+     * @param precision The number of fractional bits wanted
+     * @return Returns 1/sqrt(5), scaled by 2^precision
+     */
+    private static BigInteger findInverseSqrtFive(int precision)
+    {
+        if (precision <= 52)
+            return BigInteger.valueOf((long) Math.scalb(1d / Math.sqrt(5d), 52)).shiftRight(52 - precision);
+
+        int halfPrecision = (precision / 2) + NEWTON_GUARD_BITS;
+        BigInteger value = findInverseSqrtFive(halfPrecision).shiftLeft(precision - halfPrecision);
+
+        BigInteger square = value.multiply(value).multiply(BigInteger.valueOf(5)).shiftRight(precision);
+        BigInteger correction = BigInteger.valueOf(3).shiftLeft(precision).subtract(square);
+        return value.multiply(correction).shiftRight(precision + 1);
+    } // End of the findInverseSqrtFive method
+
     /************************* END OF DYNAMIC FIBONACCI NUMBER GENERATORS *************************/
 
 
 
+    /************************* START OF FAST FIBONACCI NUMBER GENERATORS *************************/
+
+    /**
+     * The fast doubling approach to generating the `n`th fibonacci number, which only needs `O(log n)` BigInteger
+     * multiplications instead of the `O(n)` additions made by the dynamic generators
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     */
+    static BigInteger findFibonacciNumberFastDoubling(BigInteger index)
+    {
+        return findFibonacciPairFastDoubling(index)[0];
+    } // End of the findFibonacciNumberFastDoubling method
+
+    /**
+     * The tiered approach to generating the `n`th fibonacci number, which picks the cheapest way of answering each
+     * query: indices up to 186 are looked up in a precomputed table without allocating anything, indices that fit
+     * in a long go through the shared checkpoint cache, and anything larger falls back to plain fast doubling
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     */
+    static BigInteger findFibonacciNumberTiered(BigInteger index)
+    {
+        if (index.bitLength() < Long.SIZE)
+        {
+            long naiveIndex = index.longValue();
+            if (naiveIndex <= FibonacciTable.MAX_128_BIT_INDEX)
+                return FibonacciTable.getBigInteger((int) naiveIndex);
+            return CACHE.get(naiveIndex);
+        }
+        return findFibonacciNumberFastDoubling(index);
+    } // End of the findFibonacciNumberTiered method
+
+    /**
+     * Generates the pair (F(n), F(n + 1)) by walking the bits of `n` from the most significant bit downwards, doubling
+     * the pair once per bit
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @return Returns an array of {F(n), F(n + 1)}, where `n` is the index number given
+     */
+    static BigInteger[] findFibonacciPairFastDoubling(BigInteger index)
+    {
+        BigInteger[] values = {BigInteger.ZERO, BigInteger.ONE};
+        for (int bit = index.bitLength() - 1; bit >= 0; --bit)
+            values = findDoubledFibonacciPair(values, index.testBit(bit));
+        return values;
+    } // End of the findFibonacciPairFastDoubling method
+
+    /**
+     * Doubles the pair (F(k), F(k + 1)) with the doubling identities:
+     *      F(2k)     = F(k) * (2F(k + 1) - F(k))
+     *      F(2k + 1) = F(k)^2 + F(k + 1)^2
+     * NOTE: BigInteger's own multiply() already switches from schoolbook multiplication to Karatsuba and then
+     * Toom-Cook 3 once the operands are large enough, and multiplying a value by itself takes its faster squaring
+     * path, so the squares below are written as x.multiply(x) on purpose
+     * @param values An array of {F(k), F(k + 1)}
+     * @param isOdd Whether to step to the index 2k + 1 instead of 2k
+     * @return Returns an array of {F(2k), F(2k + 1)}, or {F(2k + 1), F(2k + 2)} if isOdd is set
+     */
+    static BigInteger[] findDoubledFibonacciPair(BigInteger[] values, boolean isOdd)
+    {
+        BigInteger firstValue = values[0];
+        BigInteger secondValue = values[1];
+        BigInteger doubledValue = firstValue.multiply(secondValue.shiftLeft(1).subtract(firstValue));
+        BigInteger doubledNextValue = firstValue.multiply(firstValue).add(secondValue.multiply(secondValue));
+
+        if (isOdd)
+            return new BigInteger[] {doubledNextValue, doubledValue.add(doubledNextValue)};
+        else
+            return new BigInteger[] {doubledValue, doubledNextValue};
+    } // End of the findDoubledFibonacciPair method
+
+    /**
+     * Adds two indices together, combining the pairs (F(a), F(a + 1)) and (F(b), F(b + 1)) with the addition
+     * identities:
+     *      F(a + b)     = F(a + 1) * F(b) + F(a) * (F(b + 1) - F(b))
+     *      F(a + b + 1) = F(a + 1) * F(b + 1) + F(a) * F(b)
+     * This is only cheap while `b` is at most JUMP_GAP_LIMIT, so that F(b) is small enough to multiply F(a) by in
+     * linear time
+     * @param firstValues An array of {F(a), F(a + 1)}
+     * @param secondValues An array of {F(b), F(b + 1)}
+     * @return Returns an array of {F(a + b), F(a + b + 1)}
+     */
+    static BigInteger[] findSummedFibonacciPair(BigInteger[] firstValues, BigInteger[] secondValues)
+    {
+        BigInteger previousValue = secondValues[1].subtract(secondValues[0]); // F(b - 1)
+        BigInteger summedValue = firstValues[1].multiply(secondValues[0]).add(firstValues[0].multiply(previousValue));
+        BigInteger summedNextValue = firstValues[1].multiply(secondValues[1])
+                .add(firstValues[0].multiply(secondValues[0]));
+        return new BigInteger[] {summedValue, summedNextValue};
+    } // End of the findSummedFibonacciPair method
+
+    /**
+     * Steps the pair (F(k), F(k + 1)) forwards one index at a time with additions
+     * @param values An array of {F(k), F(k + 1)}
+     * @param steps The number of indices to step forwards by
+     * @return Returns an array of {F(k + steps), F(k + steps + 1)}
+     */
+    static BigInteger[] findSteppedFibonacciPair(BigInteger[] values, long steps)
+    {
+        BigInteger firstValue = values[0];
+        BigInteger secondValue = values[1];
+        for (long i = 0L; i < steps; ++i)
+        {
+            BigInteger currentValue = firstValue.add(secondValue);
+            firstValue = secondValue;
+            secondValue = currentValue;
+        }
+        return new BigInteger[] {firstValue, secondValue};
+    } // End of the findSteppedFibonacciPair method
+
+    /************************* END OF FAST FIBONACCI NUMBER GENERATORS *************************/
+
+
+
+    /************************* START OF BATCH FIBONACCI NUMBER GENERATORS *************************/
+
+    /**
+     * Answers a whole batch of index queries in a single process. The indices are read one per line (only the first
+     * token of each line is used, so a test file can be given as well), calculated in a single sorted sweep, and
+     * written out as `n F(n)` lines in the order they were given
+     * @param filePath The file path to read the indices from, or an empty string to read them from stdin
+     * @throws InvalidInputException When the indices cannot be read, or are not non-negative integers
+     */
+    private static void findFibonacciBatchDriver(String filePath) throws InvalidInputException
+    {
+        long[] indices;
+        try (BufferedReader reader = filePath.isEmpty()
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII))
+                : Files.newBufferedReader(Paths.get(filePath), StandardCharsets.US_ASCII))
+        {indices = readIndices(reader);}
+        catch (IOException e)
+        {throw new InvalidInputException("Error: could not read the batch indices: " + e.getMessage());}
+
+        long[] sortedIndices = LongStream.of(indices).sorted().distinct().toArray();
+        BigInteger[] values = findFibonacciNumbersSorted(sortedIndices);
+
+        try
+        {
+            OutputStream out = getOutputStream();
+            for (long index : indices)
+                writeFibonacciLine(out, index, values[Arrays.binarySearch(sortedIndices, index)]);
+            out.flush();
+        }
+        catch (IOException e)
+        {throw new InvalidInputException("Error: could not write the batch results: " + e.getMessage());}
+    } // End of the findFibonacciBatchDriver method
+
+    /**
+     * Generates the fibonacci numbers for a sorted list of distinct indices in a single sweep, carrying the pair
+     * (F(k), F(k + 1)) from one index to the next. Small gaps are stepped over with additions, gaps of at most
+     * JUMP_GAP_LIMIT are jumped over with the addition identities, and anything further is doubled to directly
+     * @param sortedIndices The indices of the fibonacci sequence we are trying to find, sorted in ascending order
+     * @return Returns the fibonacci numbers, in the same order as the indices given
+     */
+    static BigInteger[] findFibonacciNumbersSorted(long[] sortedIndices)
+    {
+        BigInteger[] values = new BigInteger[sortedIndices.length];
+        BigInteger[] currentValues = {BigInteger.ZERO, BigInteger.ONE};
+        long currentIndex = 0L;
+
+        for (int i = 0; i < sortedIndices.length; ++i)
+        {
+            long gap = sortedIndices[i] - currentIndex;
+            if (gap <= LINEAR_STEP_LIMIT)
+                currentValues = findSteppedFibonacciPair(currentValues, gap);
+            else if (gap <= JUMP_GAP_LIMIT)
+                currentValues = findSummedFibonacciPair(
+                        currentValues, findFibonacciPairFastDoubling(BigInteger.valueOf(gap)));
+            else
+                currentValues = findFibonacciPairFastDoubling(BigInteger.valueOf(sortedIndices[i]));
+
+            currentIndex = sortedIndices[i];
+            values[i] = currentValues[0];
+        }
+        return values;
+    } // End of the findFibonacciNumbersSorted method
+
+    /************************* END OF BATCH FIBONACCI NUMBER GENERATORS *************************/
+
+
+
+    /************************* START OF RANGE FIBONACCI NUMBER GENERATORS *************************/
+
+    /**
+     * Writes out every fibonacci number in a range as `n F(n)` lines. Only two values are held at a time, and the
+     * output is written straight to stdout's channel, so ranges with millions of entries run in constant memory
+     * @param range The range of the fibonacci sequence to write out
+     * @throws InvalidInputException When the results cannot be written out
+     */
+    private static void findFibonacciRangeDriver(FibonacciRange range) throws InvalidInputException
+    {
+        try
+        {
+            OutputStream out = getOutputStream();
+            long index = range.getFrom();
+            for (Iterator<BigInteger> values = range.iterator(); values.hasNext(); ++index)
+                writeFibonacciLine(out, index, values.next());
+            out.flush();
+        }
+        catch (IOException e)
+        {throw new InvalidInputException("Error: could not write the range results: " + e.getMessage());}
+    } // End of the findFibonacciRangeDriver method
+
+    /************************* END OF RANGE FIBONACCI NUMBER GENERATORS *************************/
+
+
+
+    /************************* START OF INVERSE FIBONACCI NUMBER LOOKUPS *************************/
+
+    /**
+     * Answers a whole batch of index-of queries in a single process. The values are read one per line (only the first
+     * token of each line is used), looked up in parallel, and written out as one index per line in the order they
+     * were given, with -1 for every value that is not a fibonacci number
+     * @param filePath The file path to read the values from, or an empty string to read them from stdin
+     * @throws InvalidInputException When the values cannot be read, or are not integers
+     */
+    private static void findFibonacciIndexBatchDriver(String filePath) throws InvalidInputException
+    {
+        List<String> values;
+        try (BufferedReader reader = filePath.isEmpty()
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII))
+                : Files.newBufferedReader(Paths.get(filePath), StandardCharsets.US_ASCII))
+        {values = readValues(reader);}
+        catch (IOException e)
+        {throw new InvalidInputException("Error: could not read the batch values: " + e.getMessage());}
+
+        // Parsing a large value from decimal costs as much as looking it up, so both are done in parallel
+        long[] indices = values.parallelStream()
+                .mapToLong(value -> FibonacciInverse.findIndex(new BigInteger(value)))
+                .toArray();
+
+        try
+        {
+            OutputStream out = getOutputStream();
+            for (long index : indices)
+            {
+                out.write(Long.toString(index).getBytes(StandardCharsets.US_ASCII));
+                out.write('\n');
+            }
+            out.flush();
+        }
+        catch (IOException e)
+        {throw new InvalidInputException("Error: could not write the batch results: " + e.getMessage());}
+    } // End of the findFibonacciIndexBatchDriver method
+
+    /************************* END OF INVERSE FIBONACCI NUMBER LOOKUPS *************************/
+
+
+
     /************************* START OF BENCHMARKING FIBONACCI NUMBER GENERATORS *************************/
 
     /**
@@ -353,10 +952,11 @@ public class FibonacciFinder
      */
     private static long[] benchmarkNaiveGenerators(long index)
     {
+        BigInteger bigIndex = BigInteger.valueOf(index);
         long[] returnValues = new long[3];
-        returnValues[0] = findFibonacciNumberNaiveIterative(index);
-        returnValues[1] = findFibonacciNumberNaiveRecursiveDriver(index);
-        returnValues[2] = findFibonacciNumberNaiveDirect(index);
+        returnValues[0] = FibonacciGenerator.NAIVE_ITERATIVE.generate(bigIndex).longValue();
+        returnValues[1] = FibonacciGenerator.NAIVE_RECURSIVE.generate(bigIndex).longValue();
+        returnValues[2] = FibonacciGenerator.NAIVE_DIRECT.generate(bigIndex).longValue();
         return returnValues;
     } // End of the benchmarkNaiveGenerators method
 
@@ -367,10 +967,11 @@ public class FibonacciFinder
      */
     private static BigInteger[] benchmarkDynamicGenerators(BigInteger index)
     {
-        BigInteger[] returnValues = new BigInteger[3];
-        returnValues[0] = findFibonacciNumberDynamicIterative(index);
-        returnValues[1] = findFibonacciNumberDynamicRecursiveDriver(index);
-        returnValues[2] = findFibonacciNumberDynamicDirect(index);
+        BigInteger[] returnValues = new BigInteger[4];
+        returnValues[0] = FibonacciGenerator.DYNAMIC_ITERATIVE.generate(index);
+        returnValues[1] = FibonacciGenerator.DYNAMIC_RECURSIVE.generate(index);
+        returnValues[2] = FibonacciGenerator.DYNAMIC_DIRECT.generate(index);
+        returnValues[3] = FibonacciGenerator.FAST_DOUBLING.generate(index);
         return returnValues;
     } // End of the benchmarkDynamicGenerators
 
@@ -378,69 +979,53 @@ public class FibonacciFinder
      * Outputs the results of the benchmark gathered from all generators
      * @param naiveSolutions An array of naively generated solutions
      * @param dynamicSolutions An array of dynamically generated solutions
+     * @param testSolution The "true" value that the test file gives
      */
     private static void printBenchmarkWithTest(
             long[] naiveSolutions, BigInteger[] dynamicSolutions, BigInteger testSolution)
     {
-        // Naive difference calculations
-        BigInteger naiveDifferenceIterative = testSolution.subtract(new BigInteger(Long.toString(naiveSolutions[0])));
-        BigInteger naiveDifferenceRecursive = testSolution.subtract(new BigInteger(Long.toString(naiveSolutions[1])));
-        BigInteger naiveDifferenceDirect = testSolution.subtract(new BigInteger(Long.toString(naiveSolutions[2])));
-
-        // Naive percent error calculations
-        BigDecimal naivePercentErrorIterative = new BigDecimal(
-                naiveDifferenceIterative).divide(new BigDecimal(testSolution), 10, BigDecimal.ROUND_HALF_EVEN).abs().multiply(new BigDecimal("100"));
-
-        BigDecimal naivePercentErrorRecursive = new BigDecimal(
-                naiveDifferenceRecursive).divide(new BigDecimal(testSolution), 10, BigDecimal.ROUND_HALF_EVEN).abs().multiply(new BigDecimal("100"));
-
-        BigDecimal naivePercentErrorDirect = new BigDecimal(
-                naiveDifferenceDirect).divide(new BigDecimal(testSolution), 10, BigDecimal.ROUND_HALF_EVEN).abs().multiply(new BigDecimal("100"));
-
-        // Dynamic difference calculations
-        BigInteger dynamicDifferenceIterative = testSolution.subtract(dynamicSolutions[0]);
-        BigInteger dynamicDifferenceRecursive = testSolution.subtract(dynamicSolutions[1]);
-        BigInteger dynamicDifferenceDirect = testSolution.subtract(dynamicSolutions[2]);
-
-        // Dynamic percent error calculations
-        BigDecimal dynamicPercentErrorIterative = new BigDecimal(
-                dynamicDifferenceIterative).divide(new BigDecimal(testSolution), 10, BigDecimal.ROUND_HALF_EVEN).abs().multiply(new BigDecimal("100"));
-
-        BigDecimal dynamicPercentErrorRecursive = new BigDecimal(
-                dynamicDifferenceRecursive).divide(new BigDecimal(testSolution), 10, BigDecimal.ROUND_HALF_EVEN).abs().multiply(new BigDecimal("100"));
-
-        BigDecimal dynamicPercentErrorDirect = new BigDecimal(
-                dynamicDifferenceDirect).divide(new BigDecimal(testSolution), 10, BigDecimal.ROUND_HALF_EVEN).abs().multiply(new BigDecimal("100"));
-
         // Naive output
         System.out.println("Naive Solutions:");
-        System.out.printf("\tIterative Solution:\t%d\tDifference:\t\t%d\n", naiveSolutions[0], naiveDifferenceIterative);
-        System.out.printf("\t\tTest Solution:\t%d\tPercent Error:\t\t%.5f\n",
-                testSolution, naivePercentErrorIterative);
-
-        System.out.printf("\tRecursive Solution:\t%d\tDifference:\t\t%d\n", naiveSolutions[1], naiveDifferenceRecursive);
-        System.out.printf("\t\tTest Solution:\t%d\tPercent Error:\t\t%.5f\n",
-                testSolution, naivePercentErrorRecursive);
-
-        System.out.printf("\tDirect Solution:\t%d\tDifference:\t\t%d\n", naiveSolutions[2], naiveDifferenceDirect);
-        System.out.printf("\t\tTest Solution:\t%d\tPercent Error:\t\t%.5f\n",
-                testSolution, naivePercentErrorDirect);
+        printTestedSolution("Iterative", BigInteger.valueOf(naiveSolutions[0]), testSolution);
+        printTestedSolution("Recursive", BigInteger.valueOf(naiveSolutions[1]), testSolution);
+        printTestedSolution("Direct", BigInteger.valueOf(naiveSolutions[2]), testSolution);
 
         // Dynamic output
         System.out.println("Dynamic Solutions");
+        printTestedSolution("Iterative", dynamicSolutions[0], testSolution);
+        printTestedSolution("Recursive", dynamicSolutions[1], testSolution);
+        printTestedSolution("Direct", dynamicSolutions[2], testSolution);
 
-        System.out.printf("\tIterative Solution:\t%d\tDifference:\t\t%d\n", dynamicSolutions[0], dynamicDifferenceIterative);
-        System.out.printf("\t\tTest Solution:\t%d\tPercent Error:\t\t%.5f\n",
-                testSolution, dynamicPercentErrorIterative);
+        // Fast output
+        System.out.println("Fast Solutions");
+        printTestedSolution("Doubling", dynamicSolutions[3], testSolution);
+    } // End of the printBenchmarkWithTest method
 
-        System.out.printf("\tRecursive Solution:\t%d\tDifference:\t\t%d\n", dynamicSolutions[1], dynamicDifferenceRecursive);
-        System.out.printf("\t\tTest Solution:\t%d\tPercent Error:\t\t%.5f\n",
-                testSolution, dynamicPercentErrorRecursive);
+    /**
+     * Outputs a single generated solution alongside the test solution, with its difference and percent error. The
+     * solutions are compared exactly first, so that the error is only calculated for solutions that are wrong
+     * @param name The name of the generator's type
+     * @param solution The generated solution
+     * @param testSolution The "true" value that the test file gives
+     */
+    private static void printTestedSolution(String name, BigInteger solution, BigInteger testSolution)
+    {
+        BigInteger difference = BigInteger.ZERO;
+        String percentError = String.format("%.5f", BigDecimal.ZERO);
+        if (!solution.equals(testSolution))
+        {
+            difference = testSolution.subtract(solution);
+            if (testSolution.signum() == 0)
+                percentError = "undefined"; // Any error relative to 0 is infinitely large
+            else
+                percentError = String.format("%.5f", new BigDecimal(difference)
+                        .divide(new BigDecimal(testSolution), 10, RoundingMode.HALF_EVEN).abs()
+                        .multiply(BigDecimal.valueOf(100L)));
+        }
 
-        System.out.printf("\tDirect Solution:\t%d\tDifference:\t\t%d\n", dynamicSolutions[2], dynamicDifferenceDirect);
-        System.out.printf("\t\tTest Solution:\t%d\tPercent Error:\t\t%.5f\n",
-                testSolution, dynamicPercentErrorDirect);
-    } // End of the printBenchmarkWithoutTest method
+        System.out.printf("\t%s Solution:\t%d\tDifference:\t\t%d\n", name, solution, difference);
+        System.out.printf("\t\tTest Solution:\t%d\tPercent Error:\t\t%s\n", testSolution, percentError);
+    } // End of the printTestedSolution method
 
     /**
      * Outputs the results of the benchmark gathered from all generators
@@ -458,6 +1043,9 @@ public class FibonacciFinder
         System.out.printf("\tIterative Solution:\t%d\n", dynamicSolutions[0]);
         System.out.printf("\tRecursive Solution:\t%d\n", dynamicSolutions[1]);
         System.out.printf("\tDirect Solution:\t%d\n", dynamicSolutions[2]);
+
+        System.out.println("Fast Solutions");
+        System.out.printf("\tDoubling Solution:\t%d\n", dynamicSolutions[3]);
     } // End of the printBenchmarkWithoutTest method
 
     /************************* END OF BENCHMARKING FIBONACCI NUMBER GENERATORS *************************/
@@ -466,6 +1054,44 @@ public class FibonacciFinder
 
     /************************* START OF HELPER METHODS *************************/
 
+    /**
+     * [Helper Method] Finds the generator for a commandline mode and type
+     * @param mode The generator's mode, e.g. `dynamic`
+     * @param type The generator's type, e.g. `iterative`
+     * @return Returns the generator
+     * @throws InvalidInputException When there is no such generator
+     */
+    private static FibonacciGenerator findGenerator(String mode, String type) throws InvalidInputException
+    {
+        FibonacciGenerator generator = FibonacciGenerator.find(mode, type);
+        if (generator == null)
+            throw new InvalidInputException("Error: input type should be either `iterative` or `recursive` or " +
+                    "`direct`" + (mode.equals("dynamic") ? " or `parallel`" : ""));
+        return generator;
+    } // End of the findGenerator method
+
+    /**
+     * [Helper Method] Creates the shared cache, backed by the checkpoint file given by the `fibonacci.checkpoints`
+     * system property if there is one. A checkpoint file that cannot be opened is warned about, and then ignored
+     * @return Returns the shared cache
+     */
+    private static FibonacciCache createCache()
+    {
+        long byteBudget = Long.getLong("fibonacci.cache.bytes", FibonacciCache.DEFAULT_BYTE_BUDGET);
+        String checkpointPath = System.getProperty("fibonacci.checkpoints");
+        if (checkpointPath == null)
+            return new FibonacciCache(byteBudget);
+
+        try
+        {return new FibonacciCache(byteBudget, new FibonacciCheckpointStore(Paths.get(checkpointPath)));}
+        catch (IOException e)
+        {
+            System.err.println("Warning: could not open the checkpoint file, carrying on without it: " +
+                    e.getMessage());
+            return new FibonacciCache(byteBudget);
+        }
+    } // End of the createCache method
+
     /**
      * [Helper Method] Gives the suffix of a number for prettier formatting
      * @param index The number that needs to be printed out
@@ -488,26 +1114,152 @@ public class FibonacciFinder
     } // End of the get index suffix method
 
     /**
-     * Gets the value from the given test file
+     * Gets the value from the given test file. The largest index available is discovered from the test file itself
      * @param filePath The file path to the test file
      * @param index The number that needs to be printed out
      * @return Returns the "true" value that the test file gives (assumes test file is accurate)
-     * @throws IOException Throws an exception if the test file is malformed or is too short to skip through
+     * @throws IOException Throws an exception if the test file is malformed or does not have the entry
      */
     private static BigInteger getTestValue(String filePath, BigInteger index) throws IOException
     {
-        if (index.compareTo(new BigInteger(MAX_TEST_FILE_INDEX)) == 1)
+        FibonacciReferenceFile testFile = new FibonacciReferenceFile(filePath);
+        if (index.compareTo(BigInteger.valueOf(testFile.getMaxIndex())) == 1)
             throw new IOException("Error: test file does not have prerequisite number of entries");
+        return testFile.getValue(index.longValue());
+    } // End of the getTestValue method
 
-        Stream<String> lines = Files.lines(Paths.get(filePath)); // Reads from the file
-        String testLine = lines.skip(index.longValue()).findFirst().get(); // Skips past most lines, reads in a line
-        String[] lineTokens = testLine.split(" ");
+    /**
+     * [Helper Method] Opens a large buffered stream straight onto stdout's file channel, rather than going through
+     * System.out's formatter and its default buffer. The stream must only be flushed, since closing it closes stdout
+     * @return Returns the stream for stdout
+     */
+    private static OutputStream getOutputStream()
+    {
+        System.out.flush();
+        FileChannel channel = new FileOutputStream(FileDescriptor.out).getChannel();
+        return new BufferedOutputStream(Channels.newOutputStream(channel), OUTPUT_BUFFER_SIZE);
+    } // End of the getOutputStream method
 
-        if (lineTokens.length != 2)
-            throw new IOException("Error: test file line was not of the correct form, please check your test file entries");
-        String realValueString = lineTokens[1];
-        return new BigInteger(realValueString);
-    } // End of the getTestValue method
+    /**
+     * [Helper Method] Writes a single `n F(n)` line, with F(n) in the configured output format
+     * @param out The stream to write the line to
+     * @param index The index of the fibonacci number
+     * @param value The fibonacci number
+     * @throws IOException Throws an exception if the line cannot be written
+     */
+    private static void writeFibonacciLine(OutputStream out, long index, BigInteger value) throws IOException
+    {
+        out.write(Long.toString(index).getBytes(StandardCharsets.US_ASCII));
+        out.write(' ');
+        FibonacciOutput.write(value, out);
+        out.write('\n');
+    } // End of the writeFibonacciLine method
+
+    /**
+     * [Helper Method] Prints a single fibonacci number in the configured output format. Raw output is written on its
+     * own, without any surrounding text
+     * @param index The index of the fibonacci number
+     * @param value The fibonacci number
+     * @throws InvalidInputException When the result cannot be written out
+     */
+    private static void printFibonacciNumber(BigInteger index, BigInteger value) throws InvalidInputException
+    {
+        boolean isRaw = FibonacciOutput.FORMAT.equals("raw");
+        if (!isRaw)
+            System.out.printf("The %d%s fibonacci number is: ", index, getIndexSuffix(index));
+
+        try
+        {
+            OutputStream out = getOutputStream();
+            FibonacciOutput.write(value, out);
+            if (!isRaw)
+                out.write('\n');
+            out.flush();
+        }
+        catch (IOException e)
+        {throw new InvalidInputException("Error: could not write the result: " + e.getMessage());}
+    } // End of the printFibonacciNumber method
+
+    /**
+     * [Helper Method] Reads one integer from the start of every non-empty line, without parsing it
+     * @param reader The reader to read the values from
+     * @return Returns the values' digits, in the order they were read
+     * @throws IOException Throws an exception if the reader fails
+     * @throws InvalidInputException When a line does not start with an integer
+     */
+    private static List<String> readValues(BufferedReader reader) throws IOException, InvalidInputException
+    {
+        List<String> values = new ArrayList<>();
+        int lineNumber = 0;
+
+        for (String line = reader.readLine(); line != null; line = reader.readLine())
+        {
+            ++lineNumber;
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+
+            String token = line.split("\\s+", 2)[0];
+            if (!isInteger(token))
+                throw new InvalidInputException("Error: line " + lineNumber + " should start with an integer");
+            values.add(token);
+        }
+        return values;
+    } // End of the readValues method
+
+    /**
+     * [Helper Method] Checks whether a string is a decimal integer, without parsing it
+     * @param text The string to check
+     * @return Returns true if the string is an optional `-` followed by at least one digit
+     */
+    private static boolean isInteger(String text)
+    {
+        int start = text.startsWith("-") ? 1 : 0;
+        if (text.length() == start)
+            return false;
+        for (int i = start; i < text.length(); ++i)
+            if ((text.charAt(i) < '0') || (text.charAt(i) > '9'))
+                return false;
+        return true;
+    } // End of the isInteger method
+
+    /**
+     * [Helper Method] Reads one index from the start of every non-empty line
+     * @param reader The reader to read the indices from
+     * @return Returns the indices, in the order they were read
+     * @throws IOException Throws an exception if the reader fails
+     * @throws InvalidInputException When a line does not start with a non-negative integer of at most MAX_INDEX
+     */
+    private static long[] readIndices(BufferedReader reader) throws IOException, InvalidInputException
+    {
+        long[] indices = new long[16];
+        int count = 0;
+        int lineNumber = 0;
+
+        for (String line = reader.readLine(); line != null; line = reader.readLine())
+        {
+            ++lineNumber;
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+
+            String token = line.split("\\s+", 2)[0];
+            long index;
+            try
+            {index = Long.parseLong(token);}
+            catch (NumberFormatException e)
+            {throw new InvalidInputException("Error: line " + lineNumber + " should start with an integer");}
+            if (index < 0L)
+                throw new InvalidInputException("Error: line " + lineNumber + " should not be negative");
+            if (index > MAX_INDEX)
+                throw new InvalidInputException("Error: line " + lineNumber + " should be at most " + MAX_INDEX);
+
+            if (count == indices.length)
+                indices = Arrays.copyOf(indices, count * 2);
+            indices[count++] = index;
+        }
+        return Arrays.copyOf(indices, count);
+    } // End of the readIndices method
 
     /************************* END OF HELPER METHODS *************************/
 
@@ -0,0 +1,67 @@
+import java.math.BigInteger;
+import java.util.function.Function;
+
+/**
+ * Every fibonacci number generator that FibonacciFinder provides, so that they can all be benchmarked (and later
+ * verified or selected) in the same way, and so that they can all be measured by FibonacciMetrics. Naive generators
+ * have their `long` results widened to BigIntegers
+ */
+enum FibonacciGenerator
+{
+    NAIVE_ITERATIVE("naive", "iterative",
+            index -> BigInteger.valueOf(FibonacciFinder.findFibonacciNumberNaiveIterative(index.longValue()))),
+    NAIVE_RECURSIVE("naive", "recursive",
+            index -> BigInteger.valueOf(FibonacciFinder.findFibonacciNumberNaiveRecursiveDriver(index.longValue()))),
+    NAIVE_DIRECT("naive", "direct",
+            index -> BigInteger.valueOf(FibonacciFinder.findFibonacciNumberNaiveDirect(index.longValue()))),
+    DYNAMIC_ITERATIVE("dynamic", "iterative", FibonacciFinder::findFibonacciNumberDynamicIterative),
+    DYNAMIC_RECURSIVE("dynamic", "recursive", FibonacciFinder::findFibonacciNumberDynamicRecursiveDriver),
+    DYNAMIC_DIRECT("dynamic", "direct", FibonacciFinder::findFibonacciNumberDynamicDirect),
+    DYNAMIC_PARALLEL("dynamic", "parallel", FibonacciParallel::findFibonacciNumberParallel),
+    FAST_DOUBLING("fast", "doubling", FibonacciFinder::findFibonacciNumberFastDoubling),
+    FAST_TIERED("fast", "tiered", FibonacciFinder::findFibonacciNumberTiered);
+
+    private final String mode;
+    private final String type;
+    private final Function<BigInteger, BigInteger> generator;
+
+    FibonacciGenerator(String mode, String type, Function<BigInteger, BigInteger> generator)
+    {
+        this.mode = mode;
+        this.type = type;
+        this.generator = generator;
+    } // End of the FibonacciGenerator constructor
+
+    /**
+     * Finds the generator for a commandline mode and type
+     * @param mode The generator's mode, e.g. `dynamic`
+     * @param type The generator's type, e.g. `iterative`
+     * @return Returns the generator, or null if there is no such generator
+     */
+    static FibonacciGenerator find(String mode, String type)
+    {
+        for (FibonacciGenerator generator : values())
+            if (generator.mode.equals(mode) && generator.type.equals(type))
+                return generator;
+        return null;
+    } // End of the find method
+
+    /**
+     * Runs this generator, recording its metrics if they are enabled
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     */
+    BigInteger generate(BigInteger index)
+    {
+        if (!FibonacciMetrics.ENABLED)
+            return generator.apply(index);
+        return FibonacciMetrics.record(this, generator, index);
+    } // End of the generate method
+
+    String getMode() {return mode;}
+
+    String getType() {return type;}
+
+    @Override
+    public String toString() {return mode + " " + type;}
+} // End of the FibonacciGenerator enum
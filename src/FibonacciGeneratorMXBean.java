@@ -0,0 +1,29 @@
+/**
+ * The JMX view of a single fibonacci number generator's metrics, registered under
+ * `FibonacciFinder:type=Generator,name=<mode>-<type>` while metrics are enabled. All durations are in nanoseconds, and
+ * the percentiles are accurate to within 1/8th (the width of a histogram bucket)
+ */
+public interface FibonacciGeneratorMXBean
+{
+    String getGenerator();
+
+    long getCalls();
+
+    long getTotalNanos();
+
+    double getMeanNanos();
+
+    long getMedianNanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getMaxNanos();
+
+    long getAllocatedBytes(); // -1 when the generator allocates on other threads, where it cannot be measured
+
+    long getResultBits();
+
+    void reset();
+} // End of the FibonacciGeneratorMXBean interface
@@ -0,0 +1,80 @@
+import java.math.BigInteger;
+
+/**
+ * Finds the index of a fibonacci number, or decides that a number is not one, in `O(log n)` multiplications rather
+ * than by stepping through the sequence until it is passed. F(n) is the closest integer to phi^n / sqrt(5), so
+ *      n ~ (log2(x) + log2(sqrt(5))) / log2(phi)
+ * and consecutive fibonacci numbers differ by about 0.69 bits, so the only candidates are the nearest index and its two
+ * neighbours. Values that fit in a long are checked against FibonacciTable. Larger values are first compared with each
+ * candidate mod the prime 2^61 - 1, which FibonacciModular finds with `long` arithmetic only, so a number that is not a
+ * fibonacci number is almost always rejected without a single BigInteger multiplication. A candidate whose residue
+ * matches is then confirmed exactly with fast doubling
+ */
+final class FibonacciInverse
+{
+    // The modulus used to rule candidates out cheaply. A number that is not F(n) matches it by chance about 2^-61 of
+    // the time, in which case it is still ruled out by the exact comparison
+    private static final long FILTER_MODULUS = (1L << 61) - 1L;
+
+    private static final double LOG2_PHI = Math.log((1d + Math.sqrt(5d)) / 2d) / Math.log(2d);
+    private static final double LOG2_SQRT5 = Math.log(Math.sqrt(5d)) / Math.log(2d);
+
+    private FibonacciInverse() {}
+
+    /**
+     * Finds the index of a fibonacci number
+     * @param value The number to find the index of
+     * @return Returns the smallest `n` where F(n) = value (so 1 gives 1, not 2), or -1 if value is not a fibonacci
+     * number
+     */
+    static long findIndex(BigInteger value)
+    {
+        if (value.signum() < 0)
+            return -1L;
+        if (value.signum() == 0)
+            return 0L;
+
+        long estimate = estimateIndex(value);
+        if (value.bitLength() < Long.SIZE)
+        {
+            long longValue = value.longValue();
+            for (long index = Math.max(estimate - 1L, 1L); index <= Math.min(estimate + 1L,
+                    FibonacciTable.MAX_LONG_INDEX); ++index)
+                if (FibonacciTable.getLong((int) index) == longValue)
+                    return index;
+            return -1L;
+        }
+
+        long residue = value.mod(BigInteger.valueOf(FILTER_MODULUS)).longValue();
+        for (long index = estimate - 1L; index <= estimate + 1L; ++index)
+        {
+            BigInteger bigIndex = BigInteger.valueOf(index);
+            if ((FibonacciModular.findFibonacciNumberModular(bigIndex, FILTER_MODULUS) == residue) &&
+                    FibonacciGenerator.FAST_TIERED.generate(bigIndex).equals(value))
+                return index;
+        }
+        return -1L;
+    } // End of the findIndex method
+
+    /**
+     * Checks whether a number is a fibonacci number
+     * @param value The number to check
+     * @return Returns true if F(n) = value for some index `n`
+     */
+    static boolean isFibonacciNumber(BigInteger value)
+    {
+        return findIndex(value) >= 0L;
+    } // End of the isFibonacciNumber method
+
+    /**
+     * [Helper Method] Estimates the index of a positive number from its logarithm, using its top 63 bits
+     * @param value The number to estimate the index of, which should be positive
+     * @return Returns the index `n` where F(n) is closest to value, to within one
+     */
+    private static long estimateIndex(BigInteger value)
+    {
+        int shift = Math.max(value.bitLength() - (Long.SIZE - 1), 0);
+        double log2Value = (Math.log(value.shiftRight(shift).doubleValue()) / Math.log(2d)) + shift;
+        return Math.round((log2Value + LOG2_SQRT5) / LOG2_PHI);
+    } // End of the estimateIndex method
+} // End of the FibonacciInverse class
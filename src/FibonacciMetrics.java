@@ -0,0 +1,289 @@
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Per-generator metrics: the number of calls, a latency histogram, the bytes allocated, and the total bit length of
+ * the results. Metrics are switched on with the `fibonacci.metrics` system property:
+ *      `jmx`           Registers a FibonacciGeneratorMXBean for every generator
+ *      `json`          As `jmx`, and also dumps the metrics to stderr as JSON when the program exits
+ *      `prometheus`    As `jmx`, and also dumps the metrics to stderr in the Prometheus text format on exit
+ *
+ * Whether metrics are enabled is a static final flag, so when they are disabled the JIT compiler removes the check
+ * entirely, and a generator call costs exactly what it did before.
+ *
+ * Allocated bytes are read from the ThreadMXBean of the calling thread only, so they are not measured (and are reported
+ * as -1, or left out of the Prometheus text) for the dynamic parallel generator, which allocates most of its values on
+ * fork/join worker threads
+ */
+final class FibonacciMetrics
+{
+    static final String MODE = System.getProperty("fibonacci.metrics", "");
+    static final boolean ENABLED = MODE.equals("jmx") || MODE.equals("json") || MODE.equals("prometheus");
+
+    // The histogram keeps 2^3 sub-buckets per power of two, so every recorded value is accurate to within 1/8th
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private static final GeneratorMetrics[] METRICS = new GeneratorMetrics[FibonacciGenerator.values().length];
+
+    static
+    {
+        for (FibonacciGenerator generator : FibonacciGenerator.values())
+            METRICS[generator.ordinal()] = new GeneratorMetrics(generator);
+
+        if (ENABLED)
+        {
+            try
+            {
+                for (GeneratorMetrics metrics : METRICS)
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(
+                            "FibonacciFinder:type=Generator,name=" + metrics.generator.getMode() + "-" +
+                            metrics.generator.getType()));
+            }
+            catch (JMException e)
+            {System.err.println("Warning: could not register the metrics with JMX: " + e.getMessage());}
+
+            if (!MODE.equals("jmx"))
+                Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                        System.err.print(MODE.equals("json") ? toJson() : toPrometheus())));
+        }
+    }
+
+    private FibonacciMetrics() {}
+
+    /**
+     * Runs a generator, recording how long it took, how much it allocated, and how large its result was
+     * @param generator The generator to record the metrics against
+     * @param function The generator's implementation
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     */
+    static BigInteger record(FibonacciGenerator generator, Function<BigInteger, BigInteger> function, BigInteger index)
+    {
+        boolean isAllocationMeasured = isAllocationMeasured(generator);
+        long allocatedBefore = isAllocationMeasured ? FibonacciBenchmark.getAllocatedBytes() : -1L;
+        long startTime = System.nanoTime();
+
+        BigInteger value = function.apply(index);
+
+        long elapsedTime = System.nanoTime() - startTime;
+        long allocatedAfter = isAllocationMeasured ? FibonacciBenchmark.getAllocatedBytes() : -1L;
+        long allocated = ((allocatedBefore < 0L) || (allocatedAfter < 0L)) ? -1L : allocatedAfter - allocatedBefore;
+        METRICS[generator.ordinal()].add(elapsedTime, allocated, value.bitLength());
+        return value;
+    } // End of the record method
+
+    /**
+     * Dumps every generator's metrics as a JSON document
+     * @return Returns the metrics, as JSON
+     */
+    static String toJson()
+    {
+        StringBuilder json = new StringBuilder("{\"generators\":[");
+        for (int i = 0; i < METRICS.length; ++i)
+        {
+            GeneratorMetrics metrics = METRICS[i];
+            json.append((i == 0) ? "\n" : ",\n").append(String.format(
+                    "  {\"mode\":\"%s\",\"type\":\"%s\",\"calls\":%d,\"totalNanos\":%d,\"meanNanos\":%.1f," +
+                    "\"medianNanos\":%d,\"p90Nanos\":%d,\"p99Nanos\":%d,\"maxNanos\":%d,\"allocatedBytes\":%s," +
+                    "\"resultBits\":%d}",
+                    metrics.generator.getMode(), metrics.generator.getType(), metrics.getCalls(),
+                    metrics.getTotalNanos(), metrics.getMeanNanos(), metrics.getMedianNanos(), metrics.getP90Nanos(),
+                    metrics.getP99Nanos(), metrics.getMaxNanos(),
+                    (metrics.getAllocatedBytes() < 0L) ? "null" : Long.toString(metrics.getAllocatedBytes()),
+                    metrics.getResultBits()));
+        }
+        return json.append("\n]}\n").toString();
+    } // End of the toJson method
+
+    /**
+     * Dumps every generator's metrics in the Prometheus text exposition format
+     * @return Returns the metrics, as Prometheus text
+     */
+    static String toPrometheus()
+    {
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP fibonacci_generator_duration_nanoseconds Time taken per generator call\n")
+                .append("# TYPE fibonacci_generator_duration_nanoseconds summary\n");
+        for (GeneratorMetrics metrics : METRICS)
+        {
+            String labels = getLabels(metrics.generator);
+            text.append(String.format("fibonacci_generator_duration_nanoseconds{%s,quantile=\"0.5\"} %d\n",
+                    labels, metrics.getMedianNanos()))
+                .append(String.format("fibonacci_generator_duration_nanoseconds{%s,quantile=\"0.9\"} %d\n",
+                    labels, metrics.getP90Nanos()))
+                .append(String.format("fibonacci_generator_duration_nanoseconds{%s,quantile=\"0.99\"} %d\n",
+                    labels, metrics.getP99Nanos()))
+                .append(String.format("fibonacci_generator_duration_nanoseconds_sum{%s} %d\n",
+                    labels, metrics.getTotalNanos()))
+                .append(String.format("fibonacci_generator_duration_nanoseconds_count{%s} %d\n",
+                    labels, metrics.getCalls()));
+        }
+
+        text.append("# HELP fibonacci_generator_allocated_bytes_total Bytes allocated by generator calls on the " +
+                "calling thread, left out for generators that allocate on fork/join worker threads\n")
+                .append("# TYPE fibonacci_generator_allocated_bytes_total counter\n");
+        for (GeneratorMetrics metrics : METRICS)
+            if (metrics.getAllocatedBytes() >= 0L)
+                text.append(String.format("fibonacci_generator_allocated_bytes_total{%s} %d\n",
+                        getLabels(metrics.generator), metrics.getAllocatedBytes()));
+
+        text.append("# HELP fibonacci_generator_result_bits_total Bit length of the values generated\n")
+                .append("# TYPE fibonacci_generator_result_bits_total counter\n");
+        for (GeneratorMetrics metrics : METRICS)
+            text.append(String.format("fibonacci_generator_result_bits_total{%s} %d\n",
+                    getLabels(metrics.generator), metrics.getResultBits()));
+        return text.toString();
+    } // End of the toPrometheus method
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Gets the Prometheus labels that identify a generator
+     */
+    private static String getLabels(FibonacciGenerator generator)
+    {
+        return "mode=\"" + generator.getMode() + "\",type=\"" + generator.getType() + "\"";
+    } // End of the getLabels method
+
+    /**
+     * [Helper Method] Checks whether a generator's allocations can be measured, which is only the case when all of its
+     * work runs on the calling thread
+     */
+    private static boolean isAllocationMeasured(FibonacciGenerator generator)
+    {
+        return generator != FibonacciGenerator.DYNAMIC_PARALLEL;
+    } // End of the isAllocationMeasured method
+
+    /**
+     * [Helper Method] Finds the histogram bucket of a value. Values below SUB_BUCKETS get a bucket each, and every
+     * power of two above that is split into SUB_BUCKETS equally sized buckets
+     */
+    private static int getBucket(long value)
+    {
+        if (value < SUB_BUCKETS)
+            return (int) Math.max(value, 0L);
+        int exponent = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return ((exponent + 1) << SUB_BUCKET_BITS) + (int) ((value >>> exponent) & (SUB_BUCKETS - 1));
+    } // End of the getBucket method
+
+    /**
+     * [Helper Method] Finds the largest value that falls into a histogram bucket
+     */
+    private static long getBucketUpperBound(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int exponent = (bucket >>> SUB_BUCKET_BITS) - 1;
+        return ((SUB_BUCKETS + (long) (bucket & (SUB_BUCKETS - 1)) + 1L) << exponent) - 1L;
+    } // End of the getBucketUpperBound method
+
+    /************************* END OF HELPER METHODS *************************/
+
+    /**
+     * The metrics of a single generator. Every counter is striped, so that concurrent callers do not contend
+     */
+    private static final class GeneratorMetrics implements FibonacciGeneratorMXBean
+    {
+        private final FibonacciGenerator generator;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAdder resultBits = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        private GeneratorMetrics(FibonacciGenerator generator)
+        {
+            this.generator = generator;
+        }
+
+        private void add(long nanos, long bytes, long bits)
+        {
+            calls.increment();
+            totalNanos.add(nanos);
+            if (bytes >= 0L)
+                allocatedBytes.add(bytes);
+            resultBits.add(bits);
+            maxNanos.accumulate(nanos);
+            histogram.incrementAndGet(getBucket(nanos));
+        }
+
+        /**
+         * Finds the smallest bucket that at least the given fraction of the recorded calls fall into
+         * @param fraction The percentile to find, between 0 and 1
+         * @return Returns the upper bound of that bucket, in nanoseconds
+         */
+        private long getPercentile(double fraction)
+        {
+            long total = 0L;
+            for (int i = 0; i < BUCKETS; ++i)
+                total += histogram.get(i);
+            if (total == 0L)
+                return 0L;
+
+            long target = (long) Math.ceil(fraction * total);
+            long seen = 0L;
+            for (int i = 0; i < BUCKETS; ++i)
+            {
+                seen += histogram.get(i);
+                if (seen >= target)
+                    return Math.min(getBucketUpperBound(i), getMaxNanos());
+            }
+            return getMaxNanos();
+        }
+
+        @Override
+        public String getGenerator() {return generator.toString();}
+
+        @Override
+        public long getCalls() {return calls.sum();}
+
+        @Override
+        public long getTotalNanos() {return totalNanos.sum();}
+
+        @Override
+        public double getMeanNanos()
+        {
+            long count = getCalls();
+            return (count == 0L) ? 0d : (double) getTotalNanos() / count;
+        }
+
+        @Override
+        public long getMedianNanos() {return getPercentile(0.5d);}
+
+        @Override
+        public long getP90Nanos() {return getPercentile(0.9d);}
+
+        @Override
+        public long getP99Nanos() {return getPercentile(0.99d);}
+
+        @Override
+        public long getMaxNanos() {return maxNanos.get();}
+
+        @Override
+        public long getAllocatedBytes() {return isAllocationMeasured(generator) ? allocatedBytes.sum() : -1L;}
+
+        @Override
+        public long getResultBits() {return resultBits.sum();}
+
+        @Override
+        public void reset()
+        {
+            calls.reset();
+            totalNanos.reset();
+            allocatedBytes.reset();
+            resultBits.reset();
+            maxNanos.reset();
+            for (int i = 0; i < BUCKETS; ++i)
+                histogram.set(i, 0L);
+        }
+    } // End of the GeneratorMetrics class
+} // End of the FibonacciMetrics class
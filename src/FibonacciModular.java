@@ -0,0 +1,281 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates F(n) mod m without ever calculating F(n) itself. Any index is supported, and every modulus that fits in a
+ * long. The doubling identities only need additions, subtractions and multiplications, so fast doubling works on
+ * residues just as well as it does on BigIntegers, with only `long` arithmetic:
+ *      - Moduli below 2^31 multiply directly, since the product of two residues fits in a long
+ *      - Larger odd moduli use Montgomery multiplication, built on Math.multiplyHigh
+ *      - Larger even moduli reduce the full 128 bit product from Math.multiplyHigh one bit at a time
+ *
+ * The fibonacci sequence mod m repeats with the Pisano period of m, which is at most 6m. For small moduli the whole
+ * period is calculated once and cached, after which every query is a single table lookup
+ */
+class FibonacciModular
+{
+    // Moduli up to this size have their Pisano period (of at most 6m residues) calculated and cached
+    private static final long PISANO_MODULUS_LIMIT = 1L << 16;
+    // The most residues that may be cached across every modulus' Pisano period, about 64MB worth
+    private static final long PISANO_CACHE_ENTRIES = 1L << 24;
+    private static final long DIRECT_MULTIPLY_LIMIT = 1L << 31;
+
+    private static final ConcurrentHashMap<Long, int[]> PISANO_PERIODS = new ConcurrentHashMap<>();
+    private static final AtomicLong PISANO_CACHED_ENTRIES = new AtomicLong();
+
+    private FibonacciModular() {}
+
+    /**
+     * Generates F(n) mod m
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @param modulus The modulus m, which should be positive
+     * @return Returns the value of the `n`th fibonacci number mod m, where `n` is the index number given
+     */
+    static long findFibonacciNumberModular(BigInteger index, long modulus)
+    {
+        if (modulus <= 0L)
+            throw new IllegalArgumentException("Error: modulus should be positive");
+        if (index.signum() < 0)
+            throw new IllegalArgumentException("Error: input number should not be negative");
+        if (modulus == 1L)
+            return 0L;
+
+        if (modulus <= PISANO_MODULUS_LIMIT)
+        {
+            int[] residues = getPisanoPeriod(modulus);
+            if (residues != null)
+                return residues[index.mod(BigInteger.valueOf(residues.length)).intValue()];
+        }
+
+        if (modulus < DIRECT_MULTIPLY_LIMIT)
+            return findFibonacciNumberModularDirect(index, modulus);
+        else if ((modulus & 1L) == 1L)
+            return findFibonacciNumberModularMontgomery(index, modulus);
+        else
+            return findFibonacciNumberModularWide(index, modulus);
+    } // End of the findFibonacciNumberModular method
+
+    /**
+     * Finds the Pisano period of m, i.e. how long the fibonacci sequence mod m takes to repeat
+     * @param modulus The modulus m, which should be positive
+     * @return Returns the length of the Pisano period of m, or -1 if m is too large to cache its period
+     */
+    static long getPisanoPeriodLength(long modulus)
+    {
+        if (modulus == 1L)
+            return 1L;
+        if (modulus > PISANO_MODULUS_LIMIT)
+            return -1L;
+
+        int[] residues = getPisanoPeriod(modulus);
+        return (residues == null) ? -1L : residues.length;
+    } // End of the getPisanoPeriodLength method
+
+    /************************* START OF MODULAR FIBONACCI NUMBER GENERATORS *************************/
+
+    /**
+     * Fast doubling mod m, for moduli small enough that the product of two residues fits in a long
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @param modulus The modulus m, below 2^31
+     * @return Returns the value of the `n`th fibonacci number mod m
+     */
+    private static long findFibonacciNumberModularDirect(BigInteger index, long modulus)
+    {
+        long firstValue = 0L;
+        long secondValue = 1L;
+        for (int bit = index.bitLength() - 1; bit >= 0; --bit)
+        {
+            long difference = ((2L * secondValue) - firstValue + modulus) % modulus;
+            long doubledValue = (firstValue * difference) % modulus;
+            long doubledNextValue = ((firstValue * firstValue) + (secondValue * secondValue)) % modulus;
+
+            if (index.testBit(bit))
+            {
+                firstValue = doubledNextValue;
+                secondValue = (doubledValue + doubledNextValue) % modulus;
+            }
+            else
+            {
+                firstValue = doubledValue;
+                secondValue = doubledNextValue;
+            }
+        }
+        return firstValue;
+    } // End of the findFibonacciNumberModularDirect method
+
+    /**
+     * Fast doubling mod m for large odd moduli, keeping every residue in Montgomery form (x * 2^64 mod m) so that each
+     * multiplication is reduced with two more multiplications instead of a 128 bit division
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @param modulus The modulus m, which should be odd
+     * @return Returns the value of the `n`th fibonacci number mod m
+     */
+    private static long findFibonacciNumberModularMontgomery(BigInteger index, long modulus)
+    {
+        // -m^-1 mod 2^64, by Newton's iteration (each step doubles the number of correct bits, starting from 3)
+        long inverse = modulus;
+        for (int i = 0; i < 5; ++i)
+            inverse *= 2L - (modulus * inverse);
+        long negativeInverse = -inverse;
+
+        long one = Long.remainderUnsigned(-modulus, modulus); // 2^64 mod m, i.e. 1 in Montgomery form
+        long firstValue = 0L;
+        long secondValue = one;
+        for (int bit = index.bitLength() - 1; bit >= 0; --bit)
+        {
+            long difference = subtractModular(addModular(secondValue, secondValue, modulus), firstValue, modulus);
+            long doubledValue = multiplyMontgomery(firstValue, difference, modulus, negativeInverse);
+            long doubledNextValue = addModular(
+                    multiplyMontgomery(firstValue, firstValue, modulus, negativeInverse),
+                    multiplyMontgomery(secondValue, secondValue, modulus, negativeInverse), modulus);
+
+            if (index.testBit(bit))
+            {
+                firstValue = doubledNextValue;
+                secondValue = addModular(doubledValue, doubledNextValue, modulus);
+            }
+            else
+            {
+                firstValue = doubledValue;
+                secondValue = doubledNextValue;
+            }
+        }
+        return multiplyMontgomery(firstValue, 1L, modulus, negativeInverse); // Converts back out of Montgomery form
+    } // End of the findFibonacciNumberModularMontgomery method
+
+    /**
+     * Fast doubling mod m for large even moduli, which Montgomery multiplication cannot handle
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @param modulus The modulus m
+     * @return Returns the value of the `n`th fibonacci number mod m
+     */
+    private static long findFibonacciNumberModularWide(BigInteger index, long modulus)
+    {
+        long firstValue = 0L;
+        long secondValue = 1L;
+        for (int bit = index.bitLength() - 1; bit >= 0; --bit)
+        {
+            long difference = subtractModular(addModular(secondValue, secondValue, modulus), firstValue, modulus);
+            long doubledValue = multiplyModular(firstValue, difference, modulus);
+            long doubledNextValue = addModular(multiplyModular(firstValue, firstValue, modulus),
+                    multiplyModular(secondValue, secondValue, modulus), modulus);
+
+            if (index.testBit(bit))
+            {
+                firstValue = doubledNextValue;
+                secondValue = addModular(doubledValue, doubledNextValue, modulus);
+            }
+            else
+            {
+                firstValue = doubledValue;
+                secondValue = doubledNextValue;
+            }
+        }
+        return firstValue;
+    } // End of the findFibonacciNumberModularWide method
+
+    /************************* END OF MODULAR FIBONACCI NUMBER GENERATORS *************************/
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Gets the cached Pisano period of m, calculating it first if needed. The residues are only
+     * cached while the cache has room left, otherwise they are thrown away again
+     * @param modulus The modulus m, at most PISANO_MODULUS_LIMIT
+     * @return Returns every residue F(0) mod m, F(1) mod m, ... up to the end of the period, or null if the cache is
+     * full
+     */
+    private static int[] getPisanoPeriod(long modulus)
+    {
+        int[] residues = PISANO_PERIODS.get(modulus);
+        if (residues != null)
+            return residues;
+        if (PISANO_CACHED_ENTRIES.get() + (6L * modulus) > PISANO_CACHE_ENTRIES)
+            return null;
+
+        int intModulus = (int) modulus;
+        int[] sequence = new int[(6 * intModulus) + 2];
+        sequence[1] = 1;
+        int length = 2;
+        while ((length == 2) || (sequence[length - 2] != 0) || (sequence[length - 1] != 1))
+        {
+            sequence[length] = (sequence[length - 1] + sequence[length - 2]) % intModulus;
+            ++length;
+        }
+
+        residues = Arrays.copyOf(sequence, length - 2);
+        if (PISANO_PERIODS.putIfAbsent(modulus, residues) == null)
+            PISANO_CACHED_ENTRIES.addAndGet(residues.length);
+        return residues;
+    } // End of the getPisanoPeriod method
+
+    /**
+     * [Helper Method] Adds two residues mod m without overflowing, even when m is close to 2^63
+     */
+    private static long addModular(long x, long y, long modulus)
+    {
+        long sum = x + y; // At most 2m - 2, which may wrap past Long.MAX_VALUE, so it is compared as unsigned
+        return (Long.compareUnsigned(sum, modulus) >= 0) ? sum - modulus : sum;
+    } // End of the addModular method
+
+    /**
+     * [Helper Method] Subtracts one residue from another mod m
+     */
+    private static long subtractModular(long x, long y, long modulus)
+    {
+        return (x >= y) ? x - y : x - y + modulus;
+    } // End of the subtractModular method
+
+    /**
+     * [Helper Method] Gets the upper 64 bits of the unsigned 128 bit product of two longs
+     */
+    private static long multiplyHighUnsigned(long x, long y)
+    {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    } // End of the multiplyHighUnsigned method
+
+    /**
+     * [Helper Method] Montgomery multiplication: calculates x * y * 2^-64 mod m for two residues in Montgomery form
+     * @param x The first residue, below m
+     * @param y The second residue, below m
+     * @param modulus The modulus m, which should be odd
+     * @param negativeInverse -m^-1 mod 2^64
+     * @return Returns x * y * 2^-64 mod m
+     */
+    private static long multiplyMontgomery(long x, long y, long modulus, long negativeInverse)
+    {
+        long high = multiplyHighUnsigned(x, y);
+        long low = x * y;
+        long reducer = low * negativeInverse;
+
+        // low + (reducer * m) is a multiple of 2^64 by construction, so it only carries when low is non-zero
+        long result = high + multiplyHighUnsigned(reducer, modulus) + ((low != 0L) ? 1L : 0L);
+        return (Long.compareUnsigned(result, modulus) >= 0) ? result - modulus : result;
+    } // End of the multiplyMontgomery method
+
+    /**
+     * [Helper Method] Calculates x * y mod m from the full 128 bit product, reducing its lower half one bit at a time
+     * @param x The first residue, below m
+     * @param y The second residue, below m
+     * @param modulus The modulus m
+     * @return Returns x * y mod m
+     */
+    private static long multiplyModular(long x, long y, long modulus)
+    {
+        long high = multiplyHighUnsigned(x, y); // Below m, since both x and y are
+        long low = x * y;
+        long remainder = high;
+        for (int bit = Long.SIZE - 1; bit >= 0; --bit)
+        {
+            // remainder < m < 2^63, so shifting it left never loses a bit, it just has to be compared as unsigned
+            remainder = (remainder << 1) | ((low >>> bit) & 1L);
+            if (Long.compareUnsigned(remainder, modulus) >= 0)
+                remainder -= modulus;
+        }
+        return remainder;
+    } // End of the multiplyModular method
+
+    /************************* END OF HELPER METHODS *************************/
+} // End of the FibonacciModular class
@@ -0,0 +1,349 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Converts fibonacci numbers into bytes for output, without going through a String. The output format is chosen with
+ * the `fibonacci.output` system property:
+ *      `decimal`   Decimal digits (the default)
+ *      `hex`       Hexadecimal digits, prefixed with `0x`, which need no conversion at all
+ *      `raw`       The raw big-endian bytes of the value's magnitude, for single values only
+ *
+ * Decimal conversion splits the value in two around a cached power of ten, 10^(LEAF_DIGITS * 2^i), recursing on the
+ * quotient and remainder until they are small enough for BigInteger.toString(). Both halves are written straight into
+ * their final place in one byte array, and large halves are converted in parallel on the common fork/join pool.
+ *
+ * Values with more than BLOCK_DIGITS digits are written out as they are converted instead: they are first split (in
+ * parallel) into blocks of at most BLOCK_DIGITS digits, and then a few blocks at a time are converted while the
+ * finished blocks are written out in order, so the whole decimal form is never held at once
+ */
+final class FibonacciOutput
+{
+    static final String FORMAT = System.getProperty("fibonacci.output", "decimal");
+
+    // Values with at most this many digits are converted by BigInteger.toString(), which is quick at this size
+    private static final int LEAF_DIGITS = 144;
+    // Values with at least this many digits have their two halves converted in parallel
+    private static final int PARALLEL_DIGITS = 1 << 15;
+    // Values with more than this many digits are written out a block of at most this many digits at a time
+    private static final int BLOCK_DIGITS = LEAF_DIGITS << 10;
+    // The number of blocks converted ahead of the one being written out
+    private static final int BLOCKS_AHEAD = Math.max(ForkJoinPool.getCommonPoolParallelism(), 2);
+    private static final double LOG10_2 = Math.log10(2d);
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    // POWERS_OF_TEN.get(i) = 10^(LEAF_DIGITS * 2^i), grown as larger values are converted
+    private static final List<BigInteger> POWERS_OF_TEN = new ArrayList<>();
+
+    private FibonacciOutput() {}
+
+    /**
+     * Checks whether an output format is supported
+     * @param format The name of the output format
+     * @return Returns true if the format is `decimal`, `hex` or `raw`
+     */
+    static boolean isValidFormat(String format)
+    {
+        return format.equals("decimal") || format.equals("hex") || format.equals("raw");
+    } // End of the isValidFormat method
+
+    /**
+     * Converts a value into bytes in the configured output format
+     * @param value The value to convert
+     * @return Returns the value's bytes, in the format given by the `fibonacci.output` system property
+     */
+    static byte[] toBytes(BigInteger value)
+    {
+        switch (FORMAT)
+        {
+            case "hex":
+                return toHexBytes(value);
+            case "raw":
+                return toRawBytes(value);
+            default:
+                return toDecimalBytes(value);
+        }
+    } // End of the toBytes method
+
+    /**
+     * Writes a value to a stream in the configured output format
+     * @param value The value to write
+     * @param out The stream to write it to
+     * @throws IOException Throws an exception if the value cannot be written
+     */
+    static void write(BigInteger value, OutputStream out) throws IOException
+    {
+        if (FORMAT.equals("decimal"))
+            writeDecimal(value, out);
+        else
+            out.write(toBytes(value));
+    } // End of the write method
+
+    /**
+     * Writes a value's decimal digits to a stream. Large values are written a block at a time as their blocks are
+     * converted, with the next few blocks converted in parallel while each one is written
+     * @param value The value to write
+     * @param out The stream to write it to
+     * @throws IOException Throws an exception if the value cannot be written
+     */
+    static void writeDecimal(BigInteger value, OutputStream out) throws IOException
+    {
+        BigInteger magnitude = value.abs();
+        int digits = (int) (magnitude.bitLength() * LOG10_2) + 1; // May be one too many, as in toDecimalBytes()
+        if (digits <= BLOCK_DIGITS)
+        {
+            out.write(toDecimalBytes(value));
+            return;
+        }
+        if (value.signum() < 0)
+            out.write('-');
+
+        // Splits the value into blocks keyed by the position of their first digit, padded with leading zeros
+        BigInteger[] powers = getPowersOfTen(digits);
+        ConcurrentSkipListMap<Integer, BigInteger> blockMap = new ConcurrentSkipListMap<>();
+        ForkJoinPool.commonPool().invoke(new BlockTask(magnitude, 0, digits, powers, blockMap));
+        int[] offsets = blockMap.keySet().stream().mapToInt(Integer::intValue).toArray();
+        BigInteger[] blocks = blockMap.values().toArray(new BigInteger[0]);
+        blockMap.clear();
+
+        byte[][] blockBytes = new byte[blocks.length][];
+        ForkJoinTask<?>[] conversions = new ForkJoinTask<?>[blocks.length];
+        boolean isLeading = true; // Whether no digits have been written yet
+        for (int i = 0; i < blocks.length; ++i)
+        {
+            for (int next = i; next < Math.min(i + BLOCKS_AHEAD, blocks.length); ++next)
+            {
+                if (conversions[next] != null)
+                    continue;
+                int blockDigits = ((next + 1 < blocks.length) ? offsets[next + 1] : digits) - offsets[next];
+                blockBytes[next] = new byte[blockDigits];
+                conversions[next] = ForkJoinPool.commonPool().submit(
+                        new DecimalTask(blocks[next], blockBytes[next], 0, blockDigits, powers));
+                blocks[next] = null;
+            }
+
+            conversions[i].join();
+            // Drops the extra leading zero, if the digit count was overestimated, which may be a whole block of its own
+            int start = 0;
+            if (isLeading)
+            {
+                while ((start < blockBytes[i].length) && (blockBytes[i][start] == '0'))
+                    ++start;
+                isLeading = (start == blockBytes[i].length);
+            }
+            out.write(blockBytes[i], start, blockBytes[i].length - start);
+            blockBytes[i] = null;
+            conversions[i] = null;
+        }
+    } // End of the writeDecimal method
+
+    /**
+     * Converts a value into its decimal digits, with divide and conquer
+     * @param value The value to convert
+     * @return Returns the value's decimal digits as ASCII bytes, with a leading `-` if it is negative
+     */
+    static byte[] toDecimalBytes(BigInteger value)
+    {
+        BigInteger magnitude = value.abs();
+        // An upper bound on the number of digits, which may be one too many
+        int digits = (int) (magnitude.bitLength() * LOG10_2) + 1;
+        int sign = (value.signum() < 0) ? 1 : 0;
+
+        byte[] bytes = new byte[sign + digits];
+        if (digits <= LEAF_DIGITS)
+            writeDigits(magnitude, bytes, sign, digits);
+        else
+        {
+            BigInteger[] powers = getPowersOfTen(digits);
+            ForkJoinPool.commonPool().invoke(new DecimalTask(magnitude, bytes, sign, digits, powers));
+        }
+
+        int start = sign;
+        while ((start < bytes.length - 1) && (bytes[start] == '0'))
+            ++start; // Drops the extra leading zero, if the digit count was overestimated
+        if (sign == 1)
+            bytes[--start] = '-';
+        return (start == 0) ? bytes : Arrays.copyOfRange(bytes, start, bytes.length);
+    } // End of the toDecimalBytes method
+
+    /**
+     * Converts a value into its hexadecimal digits, a nibble at a time
+     * @param value The value to convert
+     * @return Returns the value's hexadecimal digits as ASCII bytes prefixed with `0x`, and with a leading `-` if it is
+     * negative
+     */
+    static byte[] toHexBytes(BigInteger value)
+    {
+        byte[] magnitude = toRawBytes(value);
+        int sign = (value.signum() < 0) ? 1 : 0;
+        boolean hasHighNibble = (magnitude.length > 0) && ((magnitude[0] & 0xF0) != 0);
+        int nibbles = Math.max((2 * magnitude.length) - (hasHighNibble ? 0 : 1), 1);
+
+        byte[] bytes = new byte[sign + 2 + nibbles];
+        int position = bytes.length;
+        for (int i = magnitude.length - 1; i >= 0; --i)
+        {
+            bytes[--position] = HEX_DIGITS[magnitude[i] & 0x0F];
+            if (position > sign + 2)
+                bytes[--position] = HEX_DIGITS[(magnitude[i] >>> 4) & 0x0F];
+        }
+        if (position > sign + 2)
+            bytes[--position] = '0'; // Only when the value is zero
+        bytes[--position] = 'x';
+        bytes[--position] = '0';
+        if (sign == 1)
+            bytes[--position] = '-';
+        return bytes;
+    } // End of the toHexBytes method
+
+    /**
+     * Gets the raw bytes of a value's magnitude
+     * @param value The value to convert
+     * @return Returns the magnitude's bytes, most significant byte first, with no leading zero bytes (so zero has none)
+     */
+    static byte[] toRawBytes(BigInteger value)
+    {
+        byte[] bytes = value.abs().toByteArray();
+        return (bytes[0] == 0) ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    } // End of the toRawBytes method
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Gets every cached power of ten needed to convert a value, calculating any that are missing
+     * @param digits The number of digits of the value
+     * @return Returns 10^(LEAF_DIGITS * 2^i) for every i where LEAF_DIGITS * 2^i < digits
+     */
+    private static synchronized BigInteger[] getPowersOfTen(int digits)
+    {
+        if (POWERS_OF_TEN.isEmpty())
+            POWERS_OF_TEN.add(BigInteger.TEN.pow(LEAF_DIGITS));
+        while (((long) LEAF_DIGITS << POWERS_OF_TEN.size()) < digits)
+        {
+            BigInteger power = POWERS_OF_TEN.get(POWERS_OF_TEN.size() - 1);
+            POWERS_OF_TEN.add(power.multiply(power));
+        }
+        return POWERS_OF_TEN.toArray(new BigInteger[0]);
+    } // End of the getPowersOfTen method
+
+    /**
+     * [Helper Method] Writes a small value's digits into place, padded with leading zeros
+     * @param value The value to write, which should have at most `digits` digits
+     * @param bytes The array to write the digits into
+     * @param offset The position of the first digit
+     * @param digits The number of digits to write
+     */
+    private static void writeDigits(BigInteger value, byte[] bytes, int offset, int digits)
+    {
+        String text = value.toString();
+        int padding = digits - text.length();
+        for (int i = 0; i < padding; ++i)
+            bytes[offset + i] = '0';
+        for (int i = 0; i < text.length(); ++i)
+            bytes[offset + padding + i] = (byte) text.charAt(i);
+    } // End of the writeDigits method
+
+    /************************* END OF HELPER METHODS *************************/
+
+    /**
+     * Converts part of a value into a fixed number of decimal digits, padded with leading zeros, by splitting it around
+     * the largest cached power of ten with fewer digits than it, and converting the quotient and remainder separately
+     */
+    private static final class DecimalTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger value;
+        private final byte[] bytes;
+        private final int offset;
+        private final int digits;
+        private final BigInteger[] powers;
+
+        private DecimalTask(BigInteger value, byte[] bytes, int offset, int digits, BigInteger[] powers)
+        {
+            this.value = value;
+            this.bytes = bytes;
+            this.offset = offset;
+            this.digits = digits;
+            this.powers = powers;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (digits <= LEAF_DIGITS)
+            {
+                writeDigits(value, bytes, offset, digits);
+                return;
+            }
+
+            int level = 0;
+            while (((long) LEAF_DIGITS << (level + 1)) < digits)
+                ++level;
+            int lowDigits = LEAF_DIGITS << level;
+
+            BigInteger[] parts = value.divideAndRemainder(powers[level]);
+            DecimalTask high = new DecimalTask(parts[0], bytes, offset, digits - lowDigits, powers);
+            DecimalTask low = new DecimalTask(parts[1], bytes, offset + digits - lowDigits, lowDigits, powers);
+            if (digits >= PARALLEL_DIGITS)
+                invokeAll(high, low);
+            else
+            {
+                high.compute();
+                low.compute();
+            }
+        }
+    } // End of the DecimalTask class
+
+    /**
+     * Splits part of a value into blocks of at most BLOCK_DIGITS decimal digits, the same way as DecimalTask splits it
+     * into digits, recording each block by the position of its first digit
+     */
+    private static final class BlockTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger value;
+        private final int offset;
+        private final int digits;
+        private final BigInteger[] powers;
+        private final ConcurrentSkipListMap<Integer, BigInteger> blocks;
+
+        private BlockTask(BigInteger value, int offset, int digits, BigInteger[] powers,
+                ConcurrentSkipListMap<Integer, BigInteger> blocks)
+        {
+            this.value = value;
+            this.offset = offset;
+            this.digits = digits;
+            this.powers = powers;
+            this.blocks = blocks;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (digits <= BLOCK_DIGITS)
+            {
+                blocks.put(offset, value);
+                return;
+            }
+
+            int level = 0;
+            while (((long) LEAF_DIGITS << (level + 1)) < digits)
+                ++level;
+            int lowDigits = LEAF_DIGITS << level;
+
+            BigInteger[] parts = value.divideAndRemainder(powers[level]);
+            invokeAll(new BlockTask(parts[0], offset, digits - lowDigits, powers, blocks),
+                    new BlockTask(parts[1], offset + digits - lowDigits, lowDigits, powers, blocks));
+        }
+    } // End of the BlockTask class
+} // End of the FibonacciOutput class
@@ -0,0 +1,141 @@
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A multi-core version of the fast doubling generator. The three multiplications in each doubling step do not depend
+ * on each other, so once the values are large enough they are run as separate fork/join tasks. The very largest
+ * multiplications are also split up further with a parallel Karatsuba step, before handing the pieces to
+ * BigInteger's own (single threaded) multiply()
+ */
+class FibonacciParallel
+{
+    // Values smaller than this are doubled on a single thread, since forking would cost more than it saves
+    private static final int PARALLEL_DOUBLING_THRESHOLD_BITS = 1 << 16;
+    // Multiplications with operands at least this large are split into three parallel Karatsuba sub-multiplications
+    private static final int PARALLEL_MULTIPLY_THRESHOLD_BITS = 1 << 20;
+
+    /**
+     * The parallel fast doubling approach to generating the `n`th fibonacci number, using the common fork/join pool
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     */
+    static BigInteger findFibonacciNumberParallel(BigInteger index)
+    {
+        return findFibonacciPairParallel(index, ForkJoinPool.commonPool())[0];
+    } // End of the findFibonacciNumberParallel method
+
+    /**
+     * Generates the pair (F(n), F(n + 1)) with fast doubling, running the multiplications on the given pool
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @param pool The fork/join pool to run the multiplications on
+     * @return Returns an array of {F(n), F(n + 1)}, where `n` is the index number given
+     */
+    static BigInteger[] findFibonacciPairParallel(BigInteger index, ForkJoinPool pool)
+    {
+        return pool.invoke(new RecursiveTask<BigInteger[]>()
+        {
+            @Override
+            protected BigInteger[] compute()
+            {
+                BigInteger[] values = {BigInteger.ZERO, BigInteger.ONE};
+                for (int bit = index.bitLength() - 1; bit >= 0; --bit)
+                {
+                    if (values[1].bitLength() < PARALLEL_DOUBLING_THRESHOLD_BITS)
+                        values = FibonacciFinder.findDoubledFibonacciPair(values, index.testBit(bit));
+                    else
+                        values = findDoubledFibonacciPairParallel(values, index.testBit(bit));
+                }
+                return values;
+            }
+        });
+    } // End of the findFibonacciPairParallel method
+
+    /**
+     * Doubles the pair (F(k), F(k + 1)) with the same doubling identities as the fast generator, running its three
+     * independent multiplications in parallel. Must be called from within a fork/join pool
+     * @param values An array of {F(k), F(k + 1)}
+     * @param isOdd Whether to step to the index 2k + 1 instead of 2k
+     * @return Returns an array of {F(2k), F(2k + 1)}, or {F(2k + 1), F(2k + 2)} if isOdd is set
+     */
+    private static BigInteger[] findDoubledFibonacciPairParallel(BigInteger[] values, boolean isOdd)
+    {
+        BigInteger firstValue = values[0];
+        BigInteger secondValue = values[1];
+
+        ForkJoinTask<BigInteger> firstSquare = new MultiplyTask(firstValue, firstValue).fork();
+        ForkJoinTask<BigInteger> secondSquare = new MultiplyTask(secondValue, secondValue).fork();
+        BigInteger doubledValue = multiply(firstValue, secondValue.shiftLeft(1).subtract(firstValue));
+        BigInteger doubledNextValue = firstSquare.join().add(secondSquare.join());
+
+        if (isOdd)
+            return new BigInteger[] {doubledNextValue, doubledValue.add(doubledNextValue)};
+        else
+            return new BigInteger[] {doubledValue, doubledNextValue};
+    } // End of the findDoubledFibonacciPairParallel method
+
+    /**
+     * Multiplies two non-negative values, splitting the multiplication into three parallel Karatsuba
+     * sub-multiplications when both are large enough. Must be called from within a fork/join pool
+     *      x * y = z2 * 2^(2k) + (z1 - z2 - z0) * 2^k + z0
+     * where x = x1 * 2^k + x0, y = y1 * 2^k + y0, z0 = x0 * y0, z2 = x1 * y1 and z1 = (x0 + x1) * (y0 + y1)
+     * @param x The first value to multiply
+     * @param y The second value to multiply
+     * @return Returns x * y
+     */
+    static BigInteger multiply(BigInteger x, BigInteger y)
+    {
+        if (Math.min(x.bitLength(), y.bitLength()) < PARALLEL_MULTIPLY_THRESHOLD_BITS)
+            return x.multiply(y); // Passing the same object twice keeps BigInteger's faster squaring path
+
+        int half = Math.max(x.bitLength(), y.bitLength()) / 2;
+        BigInteger xHigh = x.shiftRight(half);
+        BigInteger xLow = getLowerBits(x, half);
+        BigInteger yHigh = (x == y) ? xHigh : y.shiftRight(half);
+        BigInteger yLow = (x == y) ? xLow : getLowerBits(y, half);
+        BigInteger xSum = xHigh.add(xLow);
+        BigInteger ySum = (x == y) ? xSum : yHigh.add(yLow);
+
+        ForkJoinTask<BigInteger> high = new MultiplyTask(xHigh, yHigh).fork();
+        ForkJoinTask<BigInteger> low = new MultiplyTask(xLow, yLow).fork();
+        BigInteger middle = multiply(xSum, ySum);
+        BigInteger highProduct = high.join();
+        BigInteger lowProduct = low.join();
+
+        return highProduct.shiftLeft(2 * half)
+                .add(middle.subtract(highProduct).subtract(lowProduct).shiftLeft(half))
+                .add(lowProduct);
+    } // End of the multiply method
+
+    /**
+     * [Helper Method] Gets the lowest bits of a non-negative value
+     * @param value The value to take the bits from
+     * @param bits The number of bits to keep
+     * @return Returns value mod 2^bits
+     */
+    private static BigInteger getLowerBits(BigInteger value, int bits)
+    {
+        return value.subtract(value.shiftRight(bits).shiftLeft(bits));
+    } // End of the getLowerBits method
+
+    /**
+     * A single (possibly further split) multiplication, run as a fork/join task
+     */
+    private static final class MultiplyTask extends RecursiveTask<BigInteger>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final BigInteger x;
+        private final BigInteger y;
+
+        private MultiplyTask(BigInteger x, BigInteger y)
+        {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        protected BigInteger compute() {return multiply(x, y);}
+    } // End of the MultiplyTask class
+} // End of the FibonacciParallel class
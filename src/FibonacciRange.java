@@ -0,0 +1,165 @@
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the fibonacci numbers F(a), F(a + 1), ..., F(b) without ever holding more than two of them at a time. The
+ * start of the range is found by a FibonacciCursor with fast doubling in `O(log a)` multiplications, and every value
+ * after that costs a single addition
+ */
+class FibonacciRange
+{
+    private final long from;
+    private final long to;
+
+    /**
+     * Creates the range F(from) to F(to), both inclusive
+     * @param from The index of the first fibonacci number in the range
+     * @param to The index of the last fibonacci number in the range
+     */
+    FibonacciRange(long from, long to)
+    {
+        if ((from < 0L) || (to < from))
+            throw new IllegalArgumentException("Error: range should be of the form `a b`, where 0 <= a <= b");
+        if (to > FibonacciFinder.MAX_INDEX)
+            throw new IllegalArgumentException("Error: range should end at most at " + FibonacciFinder.MAX_INDEX);
+        this.from = from;
+        this.to = to;
+    } // End of the FibonacciRange constructor
+
+    long getFrom() {return from;}
+
+    long getTo() {return to;}
+
+    /**
+     * Creates an iterator over the range, which only seeks to the start of the range once it is first used
+     * @return Returns an iterator over F(from) to F(to)
+     */
+    Iterator<BigInteger> iterator()
+    {
+        return new Iterator<BigInteger>()
+        {
+            private long nextIndex = from;
+            private FibonacciCursor cursor = null; // At nextIndex - 1, once the range has been started
+
+            @Override
+            public boolean hasNext() {return (nextIndex <= to) && (nextIndex >= from);}
+
+            @Override
+            public BigInteger next()
+            {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                if (cursor == null)
+                    cursor = new FibonacciCursor(from);
+                else
+                    cursor.next();
+
+                ++nextIndex; // Wraps to Long.MIN_VALUE after Long.MAX_VALUE, which hasNext() treats as the end
+                return cursor.get();
+            }
+        };
+    } // End of the iterator method
+
+    /**
+     * Creates a sequential, ordered stream over the range
+     * @return Returns a stream of F(from) to F(to)
+     */
+    Stream<BigInteger> stream()
+    {
+        long size = (to - from) + 1L;
+        int characteristics = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+        Spliterator<BigInteger> spliterator = (size > 0L)
+                ? Spliterators.spliterator(iterator(), size, characteristics)
+                : Spliterators.spliteratorUnknownSize(iterator(), characteristics);
+        return StreamSupport.stream(spliterator, false);
+    } // End of the stream method
+
+    /**
+     * Creates a publisher over the range. Each subscriber gets its own pass over the range, and values are only
+     * generated as the subscriber requests them, on whichever thread calls request()
+     * @return Returns a publisher of F(from) to F(to)
+     */
+    Flow.Publisher<BigInteger> publisher()
+    {
+        return subscriber -> subscriber.onSubscribe(new RangeSubscription(subscriber, iterator()));
+    } // End of the publisher method
+
+    /**
+     * A subscription that only generates as many values as have been requested. Re-entrant calls to request() from
+     * within onNext() only add to the demand, so the stack never grows with the number of values emitted
+     */
+    private static final class RangeSubscription implements Flow.Subscription
+    {
+        private final Flow.Subscriber<? super BigInteger> subscriber;
+        private final Iterator<BigInteger> iterator;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger workInProgress = new AtomicInteger();
+        private final AtomicBoolean isCancelled = new AtomicBoolean();
+
+        private RangeSubscription(Flow.Subscriber<? super BigInteger> subscriber, Iterator<BigInteger> iterator)
+        {
+            this.subscriber = subscriber;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public void request(long count)
+        {
+            if (count <= 0L)
+            {
+                if (isCancelled.compareAndSet(false, true))
+                    subscriber.onError(new IllegalArgumentException("Error: request count should be positive"));
+                return;
+            }
+
+            // Adds to the demand, capping it at Long.MAX_VALUE (which means unbounded)
+            demand.getAndUpdate(current -> (Long.MAX_VALUE - current < count) ? Long.MAX_VALUE : current + count);
+            if (workInProgress.getAndIncrement() == 0)
+                drain();
+        }
+
+        @Override
+        public void cancel() {isCancelled.set(true);}
+
+        /**
+         * Emits values while there is demand for them, only ever running on one thread at a time
+         */
+        private void drain()
+        {
+            int missed = 1;
+            do
+            {
+                while ((demand.get() > 0L) && (!isCancelled.get()))
+                {
+                    if (!iterator.hasNext())
+                    {
+                        if (isCancelled.compareAndSet(false, true))
+                            subscriber.onComplete();
+                        return;
+                    }
+
+                    subscriber.onNext(iterator.next());
+                    if (demand.get() != Long.MAX_VALUE)
+                        demand.decrementAndGet();
+                }
+
+                if ((!isCancelled.get()) && (!iterator.hasNext()) && (isCancelled.compareAndSet(false, true)))
+                {
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        } // End of the drain method
+    } // End of the RangeSubscription class
+} // End of the FibonacciRange class
@@ -0,0 +1,310 @@
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A reader for reference files of the form `n F(n)`, one entry per line, such as test/fibonacci-numbers.
+ *
+ * The first time a reference file is opened, the offset of every line is found and persisted next to it in a
+ * `.idx` file. From then on, both files are memory mapped, so any entry can be found in `O(1)` without reading any of
+ * the entries before it. The index file is rebuilt whenever the reference file's size or modification time changes
+ */
+class FibonacciReferenceFile
+{
+    private static final long INDEX_MAGIC = 0x4649424944583031L; // "FIBIDX01"
+    private static final int INDEX_HEADER_LONGS = 4; // Magic, data file size, data file modified time, entry count
+    private static final int SEGMENT_SIZE = 1 << 30; // Data files are mapped in 1GB segments
+    private static final int SCAN_BUFFER_SIZE = 1 << 20;
+
+    private final Path path;
+    private final long dataSize;
+    private final MappedByteBuffer[] segments;
+    private final LongBuffer offsets; // The starting offset of every entry
+    private final long firstIndex;
+    private final long maxIndex;
+
+    /**
+     * Opens a reference file, building and persisting its index file first if it is missing or out of date
+     * @param filePath The file path to the reference file
+     * @throws IOException Throws an exception if the reference file cannot be read, is empty, or is malformed
+     */
+    FibonacciReferenceFile(String filePath) throws IOException
+    {
+        this.path = Paths.get(filePath);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            this.dataSize = channel.size();
+            this.segments = new MappedByteBuffer[(int) ((dataSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; ++i)
+            {
+                long position = (long) i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(SEGMENT_SIZE, dataSize - position));
+            }
+        }
+
+        this.offsets = loadOffsets();
+        if (offsets.limit() == 0)
+            throw new IOException("Error: test file does not have any entries");
+
+        this.firstIndex = parseIndex(0);
+        this.maxIndex = firstIndex + offsets.limit() - 1;
+        if (parseIndex(offsets.limit() - 1) != maxIndex)
+            throw new IOException("Error: test file entries should have consecutive indices, please check your " +
+                    "test file");
+    } // End of the FibonacciReferenceFile constructor
+
+    long getFirstIndex() {return firstIndex;}
+
+    long getMaxIndex() {return maxIndex;}
+
+    /**
+     * Gets an entry's value from the reference file
+     * @param index The index of the fibonacci sequence to look up
+     * @return Returns the "true" value that the reference file gives (assumes the reference file is accurate)
+     * @throws IOException Throws an exception if the reference file does not have the entry, or it is malformed
+     */
+    BigInteger getValue(long index) throws IOException
+    {
+        ByteBuffer digits = getValueBytes(index);
+        byte[] bytes = new byte[digits.remaining()];
+        digits.get(bytes);
+        try
+        {return new BigInteger(new String(bytes, StandardCharsets.US_ASCII));}
+        catch (NumberFormatException e)
+        {
+            throw new IOException("Error: test file line was not of the correct form, please check your test file " +
+                    "entries");
+        }
+    } // End of the getValue method
+
+    /**
+     * Gets an entry's value from the reference file as its raw decimal digits, without copying them if they all lie
+     * within one mapped segment
+     * @param index The index of the fibonacci sequence to look up
+     * @return Returns a read-only buffer holding the decimal digits of the entry's value
+     * @throws IOException Throws an exception if the reference file does not have the entry, or it is malformed
+     */
+    ByteBuffer getValueBytes(long index) throws IOException
+    {
+        if ((index < firstIndex) || (index > maxIndex))
+            throw new IOException("Error: test file does not have prerequisite number of entries");
+
+        ByteBuffer line = getLine((int) (index - firstIndex));
+        int separator = 0;
+        while ((separator < line.limit()) && (line.get(separator) != ' '))
+            ++separator;
+
+        if ((separator == 0) || (separator >= line.limit() - 1) ||
+                (parseLong(line, 0, separator) != index))
+            throw new IOException("Error: test file line was not of the correct form, please check your test file " +
+                    "entries");
+
+        line.position(separator + 1);
+        return line.slice().asReadOnlyBuffer();
+    } // End of the getValueBytes method
+
+    /************************* START OF INDEX FILE METHODS *************************/
+
+    /**
+     * Loads the entry offsets from the index file, rebuilding (and trying to persist) it if it is missing, from an
+     * older version of the reference file, or unreadable
+     * @return Returns the starting offset of every entry
+     * @throws IOException Throws an exception if the reference file cannot be scanned
+     */
+    private LongBuffer loadOffsets() throws IOException
+    {
+        Path indexPath = Paths.get(path + ".idx");
+        long modifiedTime = Files.getLastModifiedTime(path).toMillis();
+
+        if (Files.isRegularFile(indexPath))
+        {
+            try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ))
+            {
+                LongBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size()).asLongBuffer();
+                if ((index.limit() >= INDEX_HEADER_LONGS) && (index.get(0) == INDEX_MAGIC) &&
+                        (index.get(1) == dataSize) && (index.get(2) == modifiedTime) &&
+                        (index.get(3) == index.limit() - INDEX_HEADER_LONGS))
+                {
+                    index.position(INDEX_HEADER_LONGS);
+                    return index.slice();
+                }
+            }
+            catch (IOException e)
+            {
+                // Falls through to rebuilding the index
+            }
+        }
+
+        LongBuffer index = scanOffsets(modifiedTime);
+        Path temporaryPath = null;
+        try
+        {
+            // Written to a temporary file first, so that other readers never see a half-written index file
+            temporaryPath = Files.createTempFile(indexPath.toAbsolutePath().getParent(), ".fibonacci", ".idx");
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE))
+            {
+                ByteBuffer bytes = ByteBuffer.allocate(index.limit() * Long.BYTES);
+                bytes.asLongBuffer().put(index.duplicate());
+                while (bytes.hasRemaining())
+                    channel.write(bytes);
+            }
+            Files.move(temporaryPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            // The index file could not be written, so the index is only kept in memory
+            try
+            {
+                if (temporaryPath != null)
+                    Files.deleteIfExists(temporaryPath);
+            }
+            catch (IOException ignored)
+            {
+                // Nothing more can be done about it
+            }
+        }
+
+        index.position(INDEX_HEADER_LONGS);
+        return index.slice();
+    } // End of the loadOffsets method
+
+    /**
+     * Scans the reference file once, finding the offset of the first byte of every non-empty line
+     * @param modifiedTime The modification time of the reference file, to be stored in the header
+     * @return Returns a buffer holding the index file's header, followed by every entry's offset
+     * @throws IOException Throws an exception if the reference file cannot be read
+     */
+    private LongBuffer scanOffsets(long modifiedTime) throws IOException
+    {
+        long[] found = new long[1024];
+        int count = 0;
+        boolean isLineStart = true;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SCAN_BUFFER_SIZE);
+            long position = 0L;
+            while (channel.read(buffer) > 0)
+            {
+                buffer.flip();
+                while (buffer.hasRemaining())
+                {
+                    byte value = buffer.get();
+                    if ((value == '\n') || (value == '\r'))
+                        isLineStart = true;
+                    else if (isLineStart)
+                    {
+                        if (count == found.length)
+                            found = Arrays.copyOf(found, count * 2);
+                        found[count++] = position;
+                        isLineStart = false;
+                    }
+                    ++position;
+                }
+                buffer.clear();
+            }
+        }
+
+        LongBuffer index = LongBuffer.allocate(INDEX_HEADER_LONGS + count);
+        index.put(INDEX_MAGIC).put(dataSize).put(modifiedTime).put(count).put(found, 0, count);
+        index.flip();
+        return index;
+    } // End of the scanOffsets method
+
+    /************************* END OF INDEX FILE METHODS *************************/
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Gets a line from the mapped reference file, without its line ending. The line is a view of the
+     * mapped segment unless it crosses a segment boundary, in which case it is copied
+     * @param entry The position of the line in the reference file, starting from 0
+     * @return Returns a buffer holding the line
+     */
+    private ByteBuffer getLine(int entry)
+    {
+        long start = offsets.get(entry);
+        long end = (entry + 1 < offsets.limit()) ? offsets.get(entry + 1) : dataSize;
+        while ((end > start) && ((getByte(end - 1) == '\n') || (getByte(end - 1) == '\r') || (getByte(end - 1) == ' ')))
+            --end;
+
+        int segment = (int) (start / SEGMENT_SIZE);
+        if (segment == (int) ((end - 1) / SEGMENT_SIZE))
+        {
+            ByteBuffer line = segments[segment].duplicate();
+            line.limit((int) (end - ((long) segment * SEGMENT_SIZE)));
+            line.position((int) (start - ((long) segment * SEGMENT_SIZE)));
+            return line.slice();
+        }
+
+        ByteBuffer line = ByteBuffer.allocate((int) (end - start));
+        for (long position = start; position < end; ++position)
+            line.put(getByte(position));
+        line.flip();
+        return line;
+    } // End of the getLine method
+
+    /**
+     * [Helper Method] Gets a single byte from the mapped reference file
+     * @param position The offset of the byte in the reference file
+     * @return Returns the byte at that offset
+     */
+    private byte getByte(long position)
+    {
+        return segments[(int) (position / SEGMENT_SIZE)].get((int) (position % SEGMENT_SIZE));
+    } // End of the getByte method
+
+    /**
+     * [Helper Method] Parses the index at the start of an entry's line
+     * @param entry The position of the line in the reference file, starting from 0
+     * @return Returns the index written at the start of the line
+     * @throws IOException Throws an exception if the line does not start with an index
+     */
+    private long parseIndex(int entry) throws IOException
+    {
+        ByteBuffer line = getLine(entry);
+        int separator = 0;
+        while ((separator < line.limit()) && (line.get(separator) != ' '))
+            ++separator;
+        return parseLong(line, 0, separator);
+    } // End of the parseIndex method
+
+    /**
+     * [Helper Method] Parses a non-negative decimal number out of a buffer, without creating a String
+     * @param buffer The buffer holding the number
+     * @param from The position of the first digit
+     * @param to The position after the last digit
+     * @return Returns the number
+     * @throws IOException Throws an exception if the bytes are not all digits
+     */
+    private static long parseLong(ByteBuffer buffer, int from, int to) throws IOException
+    {
+        if ((from >= to) || (to - from > 18))
+            throw new IOException("Error: test file line was not of the correct form, please check your test file " +
+                    "entries");
+
+        long value = 0L;
+        for (int i = from; i < to; ++i)
+        {
+            int digit = buffer.get(i) - '0';
+            if ((digit < 0) || (digit > 9))
+                throw new IOException("Error: test file line was not of the correct form, please check your test " +
+                        "file entries");
+            value = (value * 10L) + digit;
+        }
+        return value;
+    } // End of the parseLong method
+
+    /************************* END OF HELPER METHODS *************************/
+} // End of the FibonacciReferenceFile class
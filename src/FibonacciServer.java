@@ -0,0 +1,280 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A long-running query server on localhost, so that many queries can share one warm JVM (and one warm cache) instead
+ * of paying for JVM startup each time. The protocol is line based, with one request per line:
+ *      `index n`       Responds with `n F(n)`
+ *      `range a b`     Responds with a `n F(n)` line for every index from a to b (both inclusive), then `END`
+ *      `mod n m`       Responds with `n m F(n) mod m`
+ *      `stats`         Responds with the cache and coalescing statistics
+ *      `metrics`       Responds with the generator metrics in the Prometheus text format, then `END`
+ *      `quit`          Closes the connection
+ * An invalid request, or one that fails (e.g. by running out of memory), is responded to with `ERROR message`, and the
+ * connection stays open.
+ *
+ * Each connection is handled on its own virtual thread when the JVM supports them, or on a pooled thread otherwise.
+ * Concurrent `index` requests for the same n are coalesced, so that only one of them calculates F(n) (and converts it
+ * to decimal, which can take longer than calculating it) while the others wait for its result
+ */
+class FibonacciServer
+{
+    static final int DEFAULT_PORT = 11235;
+
+    private final int port;
+    private final ConcurrentHashMap<BigInteger, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalescedRequests = new LongAdder();
+
+    /**
+     * Creates a server, which does not start listening until serve() is called
+     * @param port The port to listen on, on the loopback address only, or 0 to use any free port
+     */
+    FibonacciServer(int port)
+    {
+        this.port = port;
+    } // End of the FibonacciServer constructor
+
+    /**
+     * Listens for connections until the process is stopped, handling each one on its own thread
+     * @throws IOException Throws an exception if the server socket cannot be opened
+     */
+    void serve() throws IOException
+    {
+        ExecutorService executor = createExecutor();
+        try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress()))
+        {
+            System.out.printf("Listening on %s:%d\n", serverSocket.getInetAddress().getHostAddress(),
+                    serverSocket.getLocalPort());
+            while (true)
+            {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> handleConnection(socket));
+            }
+        }
+        finally
+        {executor.shutdown();}
+    } // End of the serve method
+
+    /**
+     * Answers every request on a connection until the client closes it or sends `quit`
+     * @param socket The connection to the client
+     */
+    private void handleConnection(Socket socket)
+    {
+        try (Socket client = socket;
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+             Writer writer = new BufferedWriter(
+                     new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].equals("quit"))
+                    break;
+                if (!tokens[0].isEmpty())
+                {
+                    requests.increment();
+                    handleRequest(tokens, writer);
+                    writer.flush();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // The client went away, so there is nobody left to respond to
+        }
+    } // End of the handleConnection method
+
+    /**
+     * Answers a single request
+     * @param tokens The request, split into its command and arguments
+     * @param writer Where to write the response
+     * @throws IOException Throws an exception if the response cannot be written
+     */
+    private void handleRequest(String[] tokens, Writer writer) throws IOException
+    {
+        try
+        {
+            switch (tokens[0])
+            {
+                case "index":
+                {
+                    checkArgumentCount(tokens, 1, "index n");
+                    BigInteger index = parseIndex(tokens[1]);
+                    writer.write(index + " " + findDecimalFibonacciNumberCoalesced(index) + "\n");
+                    break;
+                } // End of the index case
+                case "range":
+                {
+                    checkArgumentCount(tokens, 2, "range a b");
+                    FibonacciRange range = new FibonacciRange(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]));
+                    long index = range.getFrom();
+                    for (Iterator<BigInteger> values = range.iterator(); values.hasNext(); ++index)
+                        writer.write(index + " " + values.next() + "\n");
+                    writer.write("END\n");
+                    break;
+                } // End of the range case
+                case "mod":
+                {
+                    checkArgumentCount(tokens, 2, "mod n m");
+                    BigInteger index = parseNonNegativeIndex(tokens[1]);
+                    long modulus = Long.parseLong(tokens[2]);
+                    writer.write(index + " " + modulus + " " +
+                            FibonacciModular.findFibonacciNumberModular(index, modulus) + "\n");
+                    break;
+                } // End of the mod case
+                case "stats":
+                {
+                    writer.write(String.format("requests=%d coalesced=%d %s\n", requests.sum(), coalescedRequests.sum(),
+                            FibonacciFinder.CACHE));
+                    break;
+                } // End of the stats case
+                case "metrics":
+                {
+                    writer.write(FibonacciMetrics.toPrometheus());
+                    writer.write("END\n");
+                    break;
+                } // End of the metrics case
+                default:
+                {
+                    writer.write("ERROR request should be one of `index n`, `range a b`, `mod n m`, `stats`, " +
+                            "`metrics` or `quit`\n");
+                } // End of the default case
+            }
+        }
+        catch (NumberFormatException e)
+        {writer.write("ERROR arguments should be integers\n");}
+        catch (IllegalArgumentException e)
+        {writer.write("ERROR " + describeFailure(e) + "\n");}
+        catch (CompletionException e)
+        {writer.write("ERROR " + describeFailure(e.getCause()) + "\n");} // Another connection's calculation failed
+        catch (RuntimeException | OutOfMemoryError e)
+        {writer.write("ERROR " + describeFailure(e) + "\n");}
+    } // End of the handleRequest method
+
+    /**
+     * Finds F(n) in decimal with the tiered generator, unless another connection is already finding the same F(n), in
+     * which case its result is waited for and shared instead
+     * @param index The index of the fibonacci sequence we are trying to find
+     * @return Returns the decimal value of the `n`th fibonacci number, where `n` is the index number given
+     */
+    private String findDecimalFibonacciNumberCoalesced(BigInteger index)
+    {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existingFuture = inFlight.putIfAbsent(index, future);
+        if (existingFuture != null)
+        {
+            coalescedRequests.increment();
+            return existingFuture.join();
+        }
+
+        try
+        {
+            future.complete(FibonacciGenerator.FAST_TIERED.generate(index).toString());
+        }
+        catch (RuntimeException | Error e)
+        {
+            future.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            // Later requests are answered by the cache instead, so the future is only kept while it is in flight
+            inFlight.remove(index, future);
+        }
+        return future.join();
+    } // End of the findDecimalFibonacciNumberCoalesced method
+
+    /************************* START OF HELPER METHODS *************************/
+
+    /**
+     * [Helper Method] Creates a virtual thread per task executor when the JVM has them (Java 21 onwards), and a cached
+     * thread pool otherwise. The virtual thread executor is looked up reflectively so that this still compiles and
+     * runs on older JVMs
+     * @return Returns the executor to handle connections on
+     */
+    private static ExecutorService createExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newCachedThreadPool();
+        }
+    } // End of the createExecutor method
+
+    /**
+     * [Helper Method] Checks that a request has the right number of arguments
+     * @param tokens The request, split into its command and arguments
+     * @param count The number of arguments the command takes
+     * @param syntax The syntax of the command, for the error message
+     */
+    private static void checkArgumentCount(String[] tokens, int count, String syntax)
+    {
+        if (tokens.length != count + 1)
+            throw new IllegalArgumentException("Error: request syntax is of form: `" + syntax + "`");
+    } // End of the checkArgumentCount method
+
+    /**
+     * [Helper Method] Parses the index of a fibonacci number to find, which has the same bounds as on the commandline
+     * @param token The request argument holding the index
+     * @return Returns the index
+     */
+    private static BigInteger parseIndex(String token)
+    {
+        BigInteger index = parseNonNegativeIndex(token);
+        if (index.compareTo(BigInteger.valueOf(FibonacciFinder.MAX_INDEX)) > 0)
+            throw new IllegalArgumentException("Error: input number should be at most " + FibonacciFinder.MAX_INDEX);
+        return index;
+    } // End of the parseIndex method
+
+    /**
+     * [Helper Method] Parses a non-negative index of any size, for requests that never find F(n) itself
+     * @param token The request argument holding the index
+     * @return Returns the index
+     */
+    private static BigInteger parseNonNegativeIndex(String token)
+    {
+        BigInteger index = new BigInteger(token);
+        if (index.signum() < 0)
+            throw new IllegalArgumentException("Error: input number should not be negative");
+        return index;
+    } // End of the parseNonNegativeIndex method
+
+    /**
+     * [Helper Method] Describes why a request failed, for its `ERROR` response
+     * @param failure The exception (or error) the request failed with
+     * @return Returns the failure's message without its `Error: ` prefix, or a description of it if it has none
+     */
+    private static String describeFailure(Throwable failure)
+    {
+        if (failure instanceof OutOfMemoryError)
+            return "not enough memory to answer the request";
+        if (failure.getMessage() == null)
+            return failure.getClass().getSimpleName();
+        return failure.getMessage().replaceFirst("^Error: ", "");
+    } // End of the describeFailure method
+
+    /************************* END OF HELPER METHODS *************************/
+} // End of the FibonacciServer class
@@ -0,0 +1,103 @@
+import java.math.BigInteger;
+
+/**
+ * Precomputed tables of every fibonacci number that fits in 64 or 128 bits, so that small indices can be answered
+ * with a single array lookup and no allocation at all. Every value is built with overflow checks, and asking for an
+ * index past the end of a table throws an ArithmeticException instead of quietly wrapping around
+ */
+final class FibonacciTable
+{
+    // F(92) is the largest fibonacci number that fits in a (signed) long
+    static final int MAX_LONG_INDEX = 92;
+    // F(186) is the largest fibonacci number that fits in 128 (unsigned) bits
+    static final int MAX_128_BIT_INDEX = 186;
+
+    private static final long[] LONG_VALUES = new long[MAX_LONG_INDEX + 1];
+    private static final long[] HIGH_VALUES = new long[MAX_128_BIT_INDEX + 1]; // The upper 64 bits of each value
+    private static final long[] LOW_VALUES = new long[MAX_128_BIT_INDEX + 1]; // The lower 64 bits of each value
+    private static final BigInteger[] BIG_VALUES = new BigInteger[MAX_128_BIT_INDEX + 1];
+
+    static
+    {
+        LOW_VALUES[1] = 1L;
+        for (int i = 2; i <= MAX_128_BIT_INDEX; ++i)
+        {
+            long low = LOW_VALUES[i - 1] + LOW_VALUES[i - 2];
+            long carry = (Long.compareUnsigned(low, LOW_VALUES[i - 1]) < 0) ? 1L : 0L;
+            long high = HIGH_VALUES[i - 1] + HIGH_VALUES[i - 2] + carry;
+            if (Long.compareUnsigned(high, HIGH_VALUES[i - 1]) < 0)
+                throw new ArithmeticException("Error: F(" + i + ") does not fit in 128 bits");
+
+            HIGH_VALUES[i] = high;
+            LOW_VALUES[i] = low;
+        }
+
+        LONG_VALUES[1] = 1L;
+        for (int i = 2; i <= MAX_LONG_INDEX; ++i)
+            LONG_VALUES[i] = Math.addExact(LONG_VALUES[i - 1], LONG_VALUES[i - 2]);
+
+        for (int i = 0; i <= MAX_128_BIT_INDEX; ++i)
+            BIG_VALUES[i] = new BigInteger(1, toBytes(HIGH_VALUES[i], LOW_VALUES[i]));
+    }
+
+    private FibonacciTable() {}
+
+    /**
+     * Looks up a fibonacci number that fits in a long
+     * @param index The index of the fibonacci sequence we are trying to find, at most MAX_LONG_INDEX
+     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     * @throws ArithmeticException When F(n) does not fit in a long
+     */
+    static long getLong(int index)
+    {
+        if ((index < 0) || (index > MAX_LONG_INDEX))
+            throw new ArithmeticException("Error: F(" + index + ") does not fit in a long");
+        return LONG_VALUES[index];
+    } // End of the getLong method
+
+    /**
+     * Looks up a fibonacci number that fits in 128 bits, writing it into a caller-provided array so that nothing is
+     * allocated
+     * @param index The index of the fibonacci sequence we are trying to find, at most MAX_128_BIT_INDEX
+     * @param result An array of at least 2 longs, which is set to {upper 64 bits, lower 64 bits} of F(n), unsigned
+     * @throws ArithmeticException When F(n) does not fit in 128 bits
+     */
+    static void get128Bit(int index, long[] result)
+    {
+        if ((index < 0) || (index > MAX_128_BIT_INDEX))
+            throw new ArithmeticException("Error: F(" + index + ") does not fit in 128 bits");
+        result[0] = HIGH_VALUES[index];
+        result[1] = LOW_VALUES[index];
+    } // End of the get128Bit method
+
+    /**
+     * Looks up a fibonacci number that fits in 128 bits as a BigInteger. The BigIntegers are all created up front, so
+     * this does not allocate either
+     * @param index The index of the fibonacci sequence we are trying to find, at most MAX_128_BIT_INDEX
+     * @return Returns the value of the `n`th fibonacci number, where `n` is the index number given
+     * @throws ArithmeticException When F(n) does not fit in 128 bits
+     */
+    static BigInteger getBigInteger(int index)
+    {
+        if ((index < 0) || (index > MAX_128_BIT_INDEX))
+            throw new ArithmeticException("Error: F(" + index + ") does not fit in 128 bits");
+        return BIG_VALUES[index];
+    } // End of the getBigInteger method
+
+    /**
+     * [Helper Method] Converts an unsigned 128 bit value into its big-endian bytes
+     * @param high The upper 64 bits of the value
+     * @param low The lower 64 bits of the value
+     * @return Returns the 16 bytes of the value, most significant byte first
+     */
+    private static byte[] toBytes(long high, long low)
+    {
+        byte[] bytes = new byte[2 * Long.BYTES];
+        for (int i = 0; i < Long.BYTES; ++i)
+        {
+            bytes[i] = (byte) (high >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+            bytes[Long.BYTES + i] = (byte) (low >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+        }
+        return bytes;
+    } // End of the toBytes method
+} // End of the FibonacciTable class
@@ -0,0 +1,153 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+/**
+ * Checks every generator against every entry of a reference file (or a range of its entries), spreading chunks of
+ * indices across the common fork/join pool. Each generated value is compared exactly, and a generator stops being
+ * checked once a failure below the index has been found. Chunks running at the same time may still check a generator
+ * a little past its first failure, but only the entries up to it are counted as checked.
+ *
+ * Parsing a reference value from decimal is slow for large values, so each entry's digits are instead compared with the
+ * first generator's value converted to decimal (which FibonacciOutput does with divide and conquer). When they match,
+ * that value becomes the expected value for every other generator, and the reference is only parsed when they do not
+ */
+class FibonacciVerifier
+{
+    // The number of consecutive indices checked by a single task
+    private static final long CHUNK_SIZE = 64L;
+
+    private final FibonacciReferenceFile referenceFile;
+    private final FibonacciGenerator[] generators = FibonacciGenerator.values();
+    private final LongAccumulator[] firstFailures = new LongAccumulator[generators.length];
+    private final LongAdder[] generatedCounts = new LongAdder[generators.length];
+    private final LongAdder[] generatorNanos = new LongAdder[generators.length];
+
+    /**
+     * Creates a verifier for a reference file
+     * @param referenceFile The reference file to check the generators against
+     */
+    FibonacciVerifier(FibonacciReferenceFile referenceFile)
+    {
+        this.referenceFile = referenceFile;
+        for (int i = 0; i < generators.length; ++i)
+        {
+            firstFailures[i] = new LongAccumulator(Math::min, Long.MAX_VALUE);
+            generatedCounts[i] = new LongAdder();
+            generatorNanos[i] = new LongAdder();
+        }
+    } // End of the FibonacciVerifier constructor
+
+    /**
+     * Checks every generator against the reference entries from `from` to `to` (both inclusive), then prints a summary
+     * of each generator's first failure and throughput
+     * @param from The first index to check
+     * @param to The last index to check
+     * @return Returns true if every generator matched every entry
+     * @throws IOException Throws an exception if the reference file does not have the entries, or is malformed
+     */
+    boolean verify(long from, long to) throws IOException
+    {
+        if ((from < referenceFile.getFirstIndex()) || (to > referenceFile.getMaxIndex()))
+            throw new IOException("Error: test file only has entries from " + referenceFile.getFirstIndex() + " to " +
+                    referenceFile.getMaxIndex());
+
+        long chunks = ((to - from) / CHUNK_SIZE) + 1L;
+        Set<Thread> threads = ConcurrentHashMap.newKeySet(); // Includes the calling thread, which runs chunks too
+        long startTime = System.nanoTime();
+        try
+        {
+            LongStream.range(0L, chunks).parallel().forEach(chunk ->
+            {
+                threads.add(Thread.currentThread());
+                long chunkFrom = from + (chunk * CHUNK_SIZE);
+                verifyChunk(chunkFrom, Math.min(chunkFrom + CHUNK_SIZE - 1L, to));
+            });
+        }
+        catch (UncheckedIOException e)
+        {throw e.getCause();}
+        long elapsedTime = System.nanoTime() - startTime;
+
+        System.out.printf("Verified indices %d to %d (%d entries) in %.1f ms on %d thread%s\n", from, to,
+                to - from + 1L, elapsedTime / 1e6d, threads.size(), (threads.size() == 1) ? "" : "s");
+        System.out.printf("%-20s\t%10s\t%14s\t%14s\n", "Generator", "Checked", "First failure", "indices/s");
+
+        boolean isValid = true;
+        for (int i = 0; i < generators.length; ++i)
+        {
+            long firstFailure = firstFailures[i].get();
+            long generated = generatedCounts[i].sum();
+            long nanos = generatorNanos[i].sum();
+            isValid &= (firstFailure == Long.MAX_VALUE);
+
+            // Every entry up to the first failure was checked, whichever chunk it was in, and any past it are not
+            // counted even if a concurrent chunk checked them before the failure was found
+            long checked = Math.min(firstFailure, to) - from + 1L;
+            System.out.printf("%-20s\t%10d\t%14s\t%14.1f\n", generators[i], checked,
+                    (firstFailure == Long.MAX_VALUE) ? "none" : Long.toString(firstFailure),
+                    (nanos == 0L) ? 0d : generated * 1e9d / nanos);
+        }
+        return isValid;
+    } // End of the verify method
+
+    /**
+     * Checks every generator that has not failed yet against a chunk of reference entries, in ascending order, so
+     * that each generator stops at its first failure within the chunk
+     * @param from The first index of the chunk
+     * @param to The last index of the chunk
+     */
+    private void verifyChunk(long from, long to)
+    {
+        for (long index = from; index <= to; ++index)
+        {
+            ByteBuffer referenceDigits;
+            try
+            {referenceDigits = referenceFile.getValueBytes(index);}
+            catch (IOException e)
+            {throw new UncheckedIOException(e);}
+
+            BigInteger bigIndex = BigInteger.valueOf(index);
+            BigInteger expected = null;
+            for (int i = 0; i < generators.length; ++i)
+            {
+                if (firstFailures[i].get() < index)
+                    continue; // Failed already, so there is nothing more to learn from it
+
+                long startTime = System.nanoTime();
+                BigInteger value = generators[i].generate(bigIndex);
+                generatorNanos[i].add(System.nanoTime() - startTime);
+                generatedCounts[i].increment();
+
+                if (expected == null)
+                    expected = ByteBuffer.wrap(FibonacciOutput.toDecimalBytes(value)).equals(referenceDigits)
+                            ? value : parseReference(referenceDigits, index);
+                if (!value.equals(expected))
+                    firstFailures[i].accumulate(index);
+            }
+        }
+    } // End of the verifyChunk method
+
+    /**
+     * [Helper Method] Parses a reference entry's decimal digits
+     * @param digits The entry's digits
+     * @param index The index of the entry, for the error message
+     * @return Returns the entry's value
+     */
+    private static BigInteger parseReference(ByteBuffer digits, long index)
+    {
+        try
+        {return new BigInteger(StandardCharsets.US_ASCII.decode(digits.duplicate()).toString());}
+        catch (NumberFormatException e)
+        {
+            throw new UncheckedIOException(new IOException("Error: test file entry " + index +
+                    " was not of the correct form, please check your test file entries"));
+        }
+    } // End of the parseReference method
+} // End of the FibonacciVerifier class